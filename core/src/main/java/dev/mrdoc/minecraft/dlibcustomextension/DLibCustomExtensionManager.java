@@ -4,7 +4,14 @@ import dev.mrdoc.minecraft.dlibcustomextension.enchantments.CustomEnchantmentMan
 import dev.mrdoc.minecraft.dlibcustomextension.i18n.TranslatesManager;
 import dev.mrdoc.minecraft.dlibcustomextension.items.CustomItemsManager;
 import dev.mrdoc.minecraft.dlibcustomextension.potions.CustomPotionsManager;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigHolder;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigIO;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigWatcher;
 import io.papermc.paper.plugin.bootstrap.BootstrapContext;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -136,6 +143,14 @@ public class DLibCustomExtensionManager {
      */
     public void onEnable() {
         TranslatesManager.load();
+        // Read the configs in parallel, each manager waits only for its own
+        Path dataFolder = this.getPlugin().getDataFolder().toPath();
+        if (this.context.items()) {
+            CustomItemsManager.preloadConfig(dataFolder);
+        }
+        if (this.context.potions()) {
+            CustomPotionsManager.preloadConfig(dataFolder);
+        }
         if (this.context.items()) {
             CustomItemsManager.load();
         }
@@ -147,6 +162,36 @@ public class DLibCustomExtensionManager {
                 CustomEnchantmentManager.onEnable(this.getPlugin());
             }
         }
+        if (this.context.configHotReload()) {
+            this.startConfigWatcher();
+        }
+    }
+
+    /**
+     * For call in onDisable plugin step.
+     */
+    public void onDisable() {
+        ConfigWatcher.stop();
+        ConfigIO.awaitPending(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Starts watching the config files of the enabled modules.
+     */
+    private void startConfigWatcher() {
+        List<ConfigHolder<?>> configHolders = new ArrayList<>();
+        if (this.context.items()) {
+            configHolders.add(CustomItemsManager.getConfigHolder());
+        }
+        if (this.context.potions()) {
+            configHolders.add(CustomPotionsManager.getConfigHolder());
+        }
+        if (this.context instanceof ContextBoostrap contextBoostrap && contextBoostrap.enchantments()) {
+            configHolders.add(CustomEnchantmentManager.getConfigHolder());
+        }
+        if (!configHolders.isEmpty()) {
+            ConfigWatcher.start(this.getPlugin().getDataFolder().toPath(), configHolders);
+        }
     }
 
     /**
@@ -155,6 +200,14 @@ public class DLibCustomExtensionManager {
     public void onBoostrap() {
         if (this.context instanceof ContextBoostrap contextBootstrap) {
             TranslatesManager.load();
+            // Read the configs of the other modules while the enchantments are loaded
+            Path dataFolder = contextBootstrap.bootstrapContext().getDataDirectory();
+            if (contextBootstrap.items()) {
+                CustomItemsManager.preloadConfig(dataFolder);
+            }
+            if (contextBootstrap.potions()) {
+                CustomPotionsManager.preloadConfig(dataFolder);
+            }
             if (contextBootstrap.enchantments()) {
                 CustomEnchantmentManager.load(contextBootstrap.bootstrapContext());
             }
@@ -169,17 +222,20 @@ public class DLibCustomExtensionManager {
         private final ClassLoader classLoader;
         private final boolean items;
         private final boolean potions;
+        private final boolean configHotReload;
 
         public Context(BaseBuilder<?,?> builder) {
             this.classLoader = builder.classLoader;
             this.items = builder.items;
             this.potions = builder.potions;
+            this.configHotReload = builder.configHotReload;
         }
 
         public static abstract class BaseBuilder<T extends BaseBuilder<T, C>, C extends Context> {
             private ClassLoader classLoader;
             private boolean items = false;
             private boolean potions = false;
+            private boolean configHotReload = false;
 
             public T withItems() {
                 items = true;
@@ -191,6 +247,16 @@ public class DLibCustomExtensionManager {
                 return this.self();
             }
 
+            /**
+             * Reloads the config files of the enabled modules when they change on disk.
+             *
+             * @return this builder
+             */
+            public T withConfigHotReload() {
+                configHotReload = true;
+                return this.self();
+            }
+
             protected abstract T self();
 
             public abstract C build();
@@ -0,0 +1,138 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments;
+
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.EnchantmentRole;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.EnchantmentSubscription;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Central listener that routes events to the custom enchantments subscribed to them.
+ * <p>
+ * One handler is registered for each event type and priority. For each event the carriers of the
+ * subscriptions are resolved, the enchantments of each carrier are read once, and only the
+ * enchantments present on their carrier are called.
+ * </p>
+ *
+ * @see AbstractCustomEnchantment#getSubscriptions()
+ */
+@ApiStatus.Internal
+public class CustomEnchantmentDispatcher implements Listener {
+
+    private static final int[] NO_LEVELS = new int[0];
+    private static @Nullable CustomEnchantmentDispatcher LISTENER = null;
+
+    private record RouteKey(Class<? extends Event> eventType, EventPriority priority, boolean ignoreCancelled) {
+    }
+
+    /**
+     * Registers the routes for the subscriptions of some enchantments, replacing the routes already registered.
+     *
+     * @param plugin       the owning plugin instance
+     * @param enchantments the enchantments
+     */
+    static void register(Plugin plugin, Collection<AbstractCustomEnchantment> enchantments) {
+        Map<RouteKey, List<EnchantmentSubscription<?>>> routes = new LinkedHashMap<>();
+        enchantments.stream().sorted(Comparator.comparingInt(AbstractCustomEnchantment::getOrdinal)).forEach(abstractCustomEnchantment -> {
+            for (EnchantmentSubscription<?> subscription : abstractCustomEnchantment.getSubscriptions()) {
+                routes.computeIfAbsent(new RouteKey(subscription.eventType(), subscription.priority(), subscription.ignoreCancelled()), key -> new ArrayList<>()).add(subscription);
+            }
+        });
+
+        if (LISTENER != null) {
+            HandlerList.unregisterAll(LISTENER);
+        }
+        CustomEnchantmentDispatcher listener = new CustomEnchantmentDispatcher();
+        LISTENER = listener;
+        routes.forEach((key, subscriptions) -> {
+            try {
+                plugin.getServer().getPluginManager().registerEvent(key.eventType(), listener, key.priority(), new Route(key.eventType(), subscriptions.toArray(EnchantmentSubscription<?>[]::new)), plugin, key.ignoreCancelled());
+            } catch (Exception e) {
+                LoggerUtils.warn("Cannot register the custom enchantment subscriptions for %s".formatted(key.eventType().getSimpleName()), e);
+            }
+        });
+        LoggerUtils.info("Registered " + routes.size() + " event routes for Custom Enchantments.");
+    }
+
+    /**
+     * The subscriptions of an event type and priority.
+     *
+     * @param eventType     the event class
+     * @param subscriptions the subscriptions, ordered by enchantment ordinal
+     */
+    private record Route(Class<? extends Event> eventType, EnchantmentSubscription<?>[] subscriptions) implements EventExecutor {
+
+        @Override
+        public void execute(Listener listener, Event event) {
+            if (!this.eventType.isInstance(event)) {
+                return;
+            }
+            // Carriers already read in this event, most subscriptions of a route share them
+            Object[] carriers = new Object[this.subscriptions.length];
+            int[][] levels = new int[this.subscriptions.length][];
+            int read = 0;
+            for (EnchantmentSubscription<?> subscription : this.subscriptions) {
+                Object carrier = carrier(subscription.role(), event);
+                if (carrier == null) {
+                    continue;
+                }
+                int[] carrierLevels = null;
+                for (int i = 0; i < read; i++) {
+                    if (carriers[i] == carrier) {
+                        carrierLevels = levels[i];
+                        break;
+                    }
+                }
+                if (carrierLevels == null) {
+                    carrierLevels = levels(carrier);
+                    carriers[read] = carrier;
+                    levels[read++] = carrierLevels;
+                }
+
+                int ordinal = subscription.enchantment().getOrdinal();
+                if (ordinal >= 0 && ordinal < carrierLevels.length && carrierLevels[ordinal] > 0) {
+                    handle(subscription, event, carrierLevels[ordinal]);
+                }
+            }
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Event> @Nullable Object carrier(EnchantmentRole<E> role, Event event) {
+        return role.carrier((E) event);
+    }
+
+    private static int[] levels(Object carrier) {
+        if (carrier instanceof ItemStack itemStack) {
+            return CustomEnchantmentManager.getAppliedEnchantmentLevels(itemStack);
+        } else if (carrier instanceof LivingEntity livingEntity) {
+            return CustomEnchantmentTracker.activeLevels(livingEntity);
+        }
+        return NO_LEVELS;
+    }
+
+    private static <E extends Event> void handle(EnchantmentSubscription<E> subscription, Event event, int level) {
+        try {
+            subscription.handler().handle(subscription.eventType().cast(event), level);
+        } catch (Throwable e) {
+            LoggerUtils.error("Could not pass %s to the custom enchantment %s".formatted(event.getEventName(), subscription.enchantment().getKey().asString()), e);
+        }
+    }
+
+}
@@ -4,23 +4,32 @@ import dev.mrdoc.minecraft.dlibcustomextension.DLibCustomExtensionManager;
 import dev.mrdoc.minecraft.dlibcustomextension.enchantments.annotations.CustomEnchantmentContainerProcessor;
 import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.AnnotationProcessorUtil;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.EnabledSnapshot;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigHolder;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionIndex;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionLoader;
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.ItemEnchantments;
 import io.papermc.paper.plugin.bootstrap.BootstrapContext;
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import lombok.SneakyThrows;
 import net.kyori.adventure.key.Key;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
-import org.spongepowered.configurate.CommentedConfigurationNode;
-import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
 
 /**
  * Manager class for custom enchantments.
@@ -30,13 +39,20 @@ import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
  * </p>
  */
 public class CustomEnchantmentManager {
-    public static HashMap<Key, AbstractCustomEnchantment> CUSTOM_ENCHANTMENTS = new HashMap<>();
+    private static final Map<Key, AbstractCustomEnchantment> BY_KEY = new HashMap<>();
+    /**
+     * The loaded enchantments by key, read only.
+     */
+    public static final Map<Key, AbstractCustomEnchantment> CUSTOM_ENCHANTMENTS = Collections.unmodifiableMap(BY_KEY);
+    // Definitions by ordinal, in load order
+    private static final List<AbstractCustomEnchantment> BY_ORDINAL = new ArrayList<>();
+    // Definitions by the bukkit enchantment, filled on enable once the registry is frozen
+    private static volatile Map<Enchantment, AbstractCustomEnchantment> BY_HANDLE = Map.of();
+    // Definitions by the exact class, published once the loading finishes
+    private static volatile Map<Class<?>, AbstractCustomEnchantment> BY_CLASS = Map.of();
 
     // Config
-    private static final String CONFIG_FILE_NAME = "config-custom-enchantments.yaml";
-    private static @Nullable YamlConfigurationLoader CONFIG_LOADER;
-    private static @Nullable CommentedConfigurationNode CONFIG_NODE;
-    private static @Nullable CustomEnchantmentConfig CONFIG;
+    private static final ConfigHolder<CustomEnchantmentConfig> CONFIG = new ConfigHolder<>("config-custom-enchantments.yaml", CustomEnchantmentConfig.class, config -> EnabledSnapshot.of(config.isEnabled(), config.getNameEnchantments()));
 
     /**
      * Loads and initializes the manager and its configuration.
@@ -53,8 +69,7 @@ public class CustomEnchantmentManager {
      */
     @SneakyThrows
     public static void saveConfig() {
-        Objects.requireNonNull(CONFIG_NODE).set(CustomEnchantmentConfig.class, CONFIG); // Update the backing node
-        Objects.requireNonNull(CONFIG_LOADER).save(CONFIG_NODE); // Write to the original file
+        CONFIG.save(); // Write to the original file
     }
 
     /**
@@ -64,13 +79,8 @@ public class CustomEnchantmentManager {
      */
     @SneakyThrows
     private static void loadConfig(BootstrapContext context) {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(context.getDataDirectory().toFile(), CONFIG_FILE_NAME).toPath())
-                .build();
-
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from file
-        CONFIG = CONFIG_NODE.get(CustomEnchantmentConfig.class); // Populate object
-        saveConfig(); // force a save
+        CONFIG.load(context.getDataDirectory()); // Load from file
+        saveConfig(); // force a save, skipped if the file does not change
     }
 
     /**
@@ -78,12 +88,39 @@ public class CustomEnchantmentManager {
      */
     @SneakyThrows
     public static void reloadConfig() {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(DLibCustomExtensionManager.getPluginInstance().getDataFolder(), CONFIG_FILE_NAME).toPath())
-                .build();
+        CONFIG.reload(); // Load from file
+    }
 
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from file
-        CONFIG = CONFIG_NODE.get(CustomEnchantmentConfig.class); // Populate object
+    /**
+     * Gets the holder of the custom enchantments configuration.
+     *
+     * @return the config holder
+     */
+    @ApiStatus.Internal
+    public static ConfigHolder<CustomEnchantmentConfig> getConfigHolder() {
+        return CONFIG;
+    }
+
+    /**
+     * Gets the custom enchantment classes of the plugin.
+     * <br>
+     * Uses the index generated at compile time, or the class names in the {@code META-INF} file if
+     * the plugin was compiled without it.
+     *
+     * @param classLoader the plugin class loader
+     * @return the enchantment classes
+     */
+    private static List<DefinitionLoader.Node<AbstractCustomEnchantment>> getNodes(final ClassLoader classLoader) {
+        DefinitionIndex<AbstractCustomEnchantment> index = DefinitionIndex.find(classLoader, CustomEnchantmentContainerProcessor.INDEX_PATH);
+        if (index != null) {
+            return index.waves().stream().flatMap(List::stream).toList();
+        }
+
+        List<DefinitionLoader.Node<AbstractCustomEnchantment>> nodes = new ArrayList<>();
+        for (Class<? extends AbstractCustomEnchantment> enchantmentClass : getClasses(classLoader)) {
+            nodes.add(DefinitionLoader.Node.reflective(enchantmentClass, new Class<?>[0], true));
+        }
+        return nodes;
     }
 
     /**
@@ -121,12 +158,19 @@ public class CustomEnchantmentManager {
      * @param context the bootstrap context
      */
     private static void loadAllCustomEnchantments(BootstrapContext context) {
-        Set<Class<? extends AbstractCustomEnchantment>> reflectionCustomEnchantments = getClasses(DLibCustomExtensionManager.getInstance().getClassLoader());
+        List<DefinitionLoader.Node<AbstractCustomEnchantment>> nodes = getNodes(DLibCustomExtensionManager.getInstance().getClassLoader());
 
-        reflectionCustomEnchantments.forEach(aClass -> {
+        nodes.forEach(node -> {
             try {
-                AbstractCustomEnchantment abstractCustomEnchantment = aClass.getConstructor().newInstance();
-                CUSTOM_ENCHANTMENTS.put(abstractCustomEnchantment.getKey(), abstractCustomEnchantment);
+                AbstractCustomEnchantment abstractCustomEnchantment = node.factory().get();
+                AbstractCustomEnchantment previous = BY_KEY.put(abstractCustomEnchantment.getKey(), abstractCustomEnchantment);
+                if (previous != null) {
+                    abstractCustomEnchantment.setOrdinal(previous.getOrdinal());
+                    BY_ORDINAL.set(previous.getOrdinal(), abstractCustomEnchantment);
+                } else {
+                    abstractCustomEnchantment.setOrdinal(BY_ORDINAL.size());
+                    BY_ORDINAL.add(abstractCustomEnchantment);
+                }
 
                 // Registry
                 abstractCustomEnchantment.registerEnchantment(context);
@@ -134,31 +178,47 @@ public class CustomEnchantmentManager {
                 LoggerUtils.info("Loaded " + abstractCustomEnchantment.getKey().asString() + " for Custom Enchantment.");
 
             } catch (Exception e) {
-                LoggerUtils.warn("Cannot load [%s] for Custom Enchantment".formatted(aClass.getSimpleName()), e);
+                LoggerUtils.warn("Cannot load [%s] for Custom Enchantment".formatted(node.type().getSimpleName()), e);
             }
         });
+        Map<Class<?>, AbstractCustomEnchantment> byClass = new HashMap<>();
+        BY_ORDINAL.forEach(abstractCustomEnchantment -> byClass.putIfAbsent(abstractCustomEnchantment.getClass(), abstractCustomEnchantment));
+        BY_CLASS = Map.copyOf(byClass);
         LoggerUtils.info("Loaded " + CustomEnchantmentManager.CUSTOM_ENCHANTMENTS.size() + " Custom Enchantments.");
     }
 
     /**
-     * Registers listeners for all custom enchantments during the plugin enable phase.
+     * Resolves the bukkit enchantments and registers listeners, event subscriptions and tick effects for all custom enchantments during the plugin enable phase.
      *
      * @param plugin the owning plugin instance
      */
     public static void onEnable(Plugin plugin) {
-        CUSTOM_ENCHANTMENTS.forEach((key, abstractCustomEnchantment) -> abstractCustomEnchantment.registerListener(plugin));
+        Map<Enchantment, AbstractCustomEnchantment> byHandle = new HashMap<>();
+        BY_KEY.forEach((key, abstractCustomEnchantment) -> {
+            abstractCustomEnchantment.resolveEnchantment();
+            byHandle.put(abstractCustomEnchantment.getEnchantment(), abstractCustomEnchantment);
+            abstractCustomEnchantment.registerListener(plugin);
+        });
+        BY_HANDLE = Map.copyOf(byHandle);
+        CustomEnchantmentTicker.start(plugin, BY_ORDINAL);
+        CustomEnchantmentTracker.start(plugin);
+        CustomEnchantmentDispatcher.register(plugin, BY_ORDINAL);
+    }
+
+    private static Optional<AbstractCustomEnchantment> byClass(Class<?> clazz) {
+        return Optional.ofNullable(BY_CLASS.get(clazz));
     }
 
     public static <T extends AbstractCustomEnchantment> Optional<T> getEnchantmentInstance(Class<T> clazz) {
-        return CUSTOM_ENCHANTMENTS.values().stream().filter(abstractCustomEnchantment -> abstractCustomEnchantment.getClass().equals(clazz)).map(clazz::cast).findFirst();
+        return byClass(clazz).map(clazz::cast);
     }
 
     public static <T extends AbstractCustomEnchantment> Optional<Enchantment> getEnchantment(Class<T> clazz) {
-        return CUSTOM_ENCHANTMENTS.values().stream().filter(abstractCustomEnchantment -> abstractCustomEnchantment.getClass().equals(clazz)).map(clazz::cast).map(AbstractCustomEnchantment::getEnchantment).findFirst();
+        return byClass(clazz).map(AbstractCustomEnchantment::getEnchantment);
     }
 
     public static <T extends AbstractCustomEnchantment> Optional<ItemStack> getEnchantmentBook(Class<T> clazz, int level) {
-        return CUSTOM_ENCHANTMENTS.values().stream().filter(abstractCustomEnchantment -> abstractCustomEnchantment.getClass().equals(clazz)).map(clazz::cast).map(enchantmentInstance -> enchantmentInstance.generateEnchantmentBook(level)).findFirst();
+        return byClass(clazz).map(enchantmentInstance -> enchantmentInstance.generateEnchantmentBook(level));
     }
 
     public static <T extends AbstractCustomEnchantment> Optional<ItemStack> getEnchantmentBook(Class<T> clazz) {
@@ -169,21 +229,219 @@ public class CustomEnchantmentManager {
         if (itemStack == null || itemStack.isEmpty()) {
             return 0;
         }
-        return CustomEnchantmentManager.getEnchantment(clazz).map(itemStack::getEnchantmentLevel).orElse(0);
+        AbstractCustomEnchantment abstractCustomEnchantment = BY_CLASS.get(clazz);
+        return abstractCustomEnchantment == null ? 0 : abstractCustomEnchantment.getLevel(itemStack);
     }
 
     public static boolean hasEnchantment(final Class<? extends AbstractCustomEnchantment> clazz, @Nullable final ItemStack itemStack) {
+        return CustomEnchantmentManager.getEnchantmentLevel(clazz, itemStack) > 0;
+    }
+
+    /**
+     * Gets the amount of loaded custom enchantments, the length of the level arrays.
+     *
+     * @return the amount of custom enchantments
+     */
+    public static int getEnchantmentCount() {
+        return BY_ORDINAL.size();
+    }
+
+    /**
+     * Gets a custom enchantment by its ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the enchantment
+     * @throws IndexOutOfBoundsException if there is no enchantment with that ordinal
+     * @see AbstractCustomEnchantment#getOrdinal()
+     */
+    public static AbstractCustomEnchantment getEnchantmentByOrdinal(int ordinal) {
+        return BY_ORDINAL.get(ordinal);
+    }
+
+    /**
+     * Gets the levels of all the custom enchantments in an item, the applied ones and the ones stored
+     * in an enchanted book.
+     * <br>
+     * Each component is read once, the array is indexed by {@link AbstractCustomEnchantment#getOrdinal()}.
+     *
+     * @param itemStack the item
+     * @return the levels, 0 for the enchantments the item does not have
+     */
+    public static int[] getEnchantmentLevels(@Nullable final ItemStack itemStack) {
+        int[] levels = new int[BY_ORDINAL.size()];
         if (itemStack == null || itemStack.isEmpty()) {
-            return false;
+            return levels;
         }
-        return CustomEnchantmentManager.getEnchantmentLevel(clazz, itemStack) > 0;
+        Map<Enchantment, AbstractCustomEnchantment> byHandle = BY_HANDLE;
+        collectLevels(byHandle, itemStack.getData(DataComponentTypes.ENCHANTMENTS), levels);
+        collectLevels(byHandle, itemStack.getData(DataComponentTypes.STORED_ENCHANTMENTS), levels);
+        return levels;
     }
 
-    public static boolean isEnchantmentEnabled(String internalName) {
-        if (CONFIG != null && !CONFIG.isEnabled()) {
-            return true;
+    /**
+     * Gets the levels of all the custom enchantments for each item of a list.
+     *
+     * @param itemStacks the items
+     * @return the levels of each item, in the same order
+     * @see #getEnchantmentLevels(ItemStack)
+     */
+    public static List<int[]> getEnchantmentLevels(final List<? extends @Nullable ItemStack> itemStacks) {
+        List<int[]> levels = new ArrayList<>(itemStacks.size());
+        for (ItemStack itemStack : itemStacks) {
+            levels.add(CustomEnchantmentManager.getEnchantmentLevels(itemStack));
+        }
+        return levels;
+    }
+
+    /**
+     * Gets the levels of all the custom enchantments applied on an item, without the stored ones.
+     *
+     * @param itemStack the item
+     * @return the levels indexed by ordinal
+     */
+    static int[] getAppliedEnchantmentLevels(@Nullable final ItemStack itemStack) {
+        int[] levels = new int[BY_ORDINAL.size()];
+        if (itemStack != null && !itemStack.isEmpty()) {
+            collectLevels(BY_HANDLE, itemStack.getData(DataComponentTypes.ENCHANTMENTS), levels);
+        }
+        return levels;
+    }
+
+    /**
+     * Adds the levels of the custom enchantments of an equipped item that are active in its slot.
+     *
+     * @param itemStack   the item
+     * @param slotBit     the bit of the slot of the item
+     * @param activeSlots the bitmask of active slots of each enchantment, indexed by ordinal
+     * @param levels      the levels indexed by ordinal, only raised
+     */
+    static void collectActiveLevels(@Nullable final ItemStack itemStack, int slotBit, int[] activeSlots, int[] levels) {
+        if (itemStack == null || itemStack.isEmpty()) {
+            return;
+        }
+        ItemEnchantments itemEnchantments = itemStack.getData(DataComponentTypes.ENCHANTMENTS);
+        if (itemEnchantments == null) {
+            return;
+        }
+        Map<Enchantment, AbstractCustomEnchantment> byHandle = BY_HANDLE;
+        itemEnchantments.enchantments().forEach((enchantment, level) -> {
+            AbstractCustomEnchantment abstractCustomEnchantment = byHandle.get(enchantment);
+            if (abstractCustomEnchantment == null) {
+                return;
+            }
+            int ordinal = abstractCustomEnchantment.getOrdinal();
+            if (ordinal < levels.length && ordinal < activeSlots.length && (activeSlots[ordinal] & slotBit) != 0) {
+                levels[ordinal] = Math.max(levels[ordinal], level);
+            }
+        });
+    }
+
+    private static void collectLevels(Map<Enchantment, AbstractCustomEnchantment> byHandle, @Nullable ItemEnchantments itemEnchantments, int[] levels) {
+        if (itemEnchantments == null) {
+            return;
+        }
+        itemEnchantments.enchantments().forEach((enchantment, level) -> {
+            AbstractCustomEnchantment abstractCustomEnchantment = byHandle.get(enchantment);
+            if (abstractCustomEnchantment != null && abstractCustomEnchantment.getOrdinal() < levels.length) {
+                levels[abstractCustomEnchantment.getOrdinal()] = Math.max(levels[abstractCustomEnchantment.getOrdinal()], level);
+            }
+        });
+    }
+
+    /**
+     * Splits some items by the presence of a custom enchantment applied on them, reading each item once.
+     *
+     * @param clazz      the enchantment class
+     * @param itemStacks the items
+     * @return the items with and without the enchantment, in the original order
+     */
+    public static Partition partition(final Class<? extends AbstractCustomEnchantment> clazz, final Collection<? extends ItemStack> itemStacks) {
+        AbstractCustomEnchantment abstractCustomEnchantment = BY_CLASS.get(clazz);
+        if (abstractCustomEnchantment == null) {
+            return new Partition(List.of(), List.copyOf(itemStacks));
+        }
+        List<ItemStack> with = new ArrayList<>();
+        List<ItemStack> without = new ArrayList<>();
+        for (ItemStack itemStack : itemStacks) {
+            (abstractCustomEnchantment.getLevel(itemStack) > 0 ? with : without).add(itemStack);
+        }
+        return new Partition(with, without);
+    }
+
+    /**
+     * Checks if a player has a custom enchantment in one of its active slots.
+     * <br>
+     * Reads the equipment cache, no item is accessed.
+     *
+     * @param player the player
+     * @param clazz  the enchantment class
+     * @return {@code true} if the enchantment is active
+     * @see AbstractCustomEnchantment#getActiveSlots()
+     */
+    public static boolean hasActive(final Player player, final Class<? extends AbstractCustomEnchantment> clazz) {
+        return CustomEnchantmentManager.activeLevel(player, clazz) > 0;
+    }
+
+    /**
+     * Gets the max level of a custom enchantment over the active slots of a player.
+     * <br>
+     * Reads the equipment cache, no item is accessed.
+     *
+     * @param player the player
+     * @param clazz  the enchantment class
+     * @return the level, or 0 if the enchantment is not active
+     * @see AbstractCustomEnchantment#getActiveSlots()
+     */
+    public static int activeLevel(final Player player, final Class<? extends AbstractCustomEnchantment> clazz) {
+        AbstractCustomEnchantment abstractCustomEnchantment = BY_CLASS.get(clazz);
+        return abstractCustomEnchantment == null ? 0 : CustomEnchantmentManager.activeLevel(player, abstractCustomEnchantment);
+    }
+
+    /**
+     * Gets the max level of a custom enchantment over the active slots of a player.
+     *
+     * @param player                    the player
+     * @param abstractCustomEnchantment the enchantment
+     * @return the level, or 0 if the enchantment is not active
+     */
+    public static int activeLevel(final Player player, final AbstractCustomEnchantment abstractCustomEnchantment) {
+        CustomEnchantmentTracker.Equipped equipped = CustomEnchantmentTracker.get(player);
+        int ordinal = abstractCustomEnchantment.getOrdinal();
+        if (equipped == null || ordinal < 0 || ordinal >= BY_ORDINAL.size()) {
+            return 0;
         }
-        return CONFIG != null && CONFIG.getNameEnchantments().stream().anyMatch(internalName::equalsIgnoreCase);
+        return equipped.activeLevel(ordinal);
+    }
+
+    /**
+     * Gets the level of a custom enchantment in an equipment slot of a player, even if the slot is
+     * not one of its active slots.
+     *
+     * @param player the player
+     * @param slot   the equipment slot
+     * @param clazz  the enchantment class
+     * @return the level, or 0 if the item in the slot does not have the enchantment
+     */
+    public static int slotLevel(final Player player, final EquipmentSlot slot, final Class<? extends AbstractCustomEnchantment> clazz) {
+        AbstractCustomEnchantment abstractCustomEnchantment = BY_CLASS.get(clazz);
+        CustomEnchantmentTracker.Equipped equipped = CustomEnchantmentTracker.get(player);
+        if (abstractCustomEnchantment == null || equipped == null || abstractCustomEnchantment.getOrdinal() < 0 || abstractCustomEnchantment.getOrdinal() >= BY_ORDINAL.size()) {
+            return 0;
+        }
+        return equipped.slotLevel(slot, abstractCustomEnchantment.getOrdinal());
+    }
+
+    /**
+     * Items split by the presence of a custom enchantment.
+     *
+     * @param with    the items with the enchantment
+     * @param without the items without the enchantment
+     */
+    public record Partition(List<ItemStack> with, List<ItemStack> without) {
+    }
+
+    public static boolean isEnchantmentEnabled(String internalName) {
+        return CONFIG.getEnabled().isEnabled(internalName);
     }
 
 }
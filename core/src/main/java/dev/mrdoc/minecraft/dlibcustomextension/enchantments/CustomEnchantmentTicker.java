@@ -0,0 +1,169 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments;
+
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.EnchantmentTickEffect;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Runs the periodic effects of all the custom enchantments from a single task.
+ * <p>
+ * Each effect keeps the players with its enchantment active, from {@link CustomEnchantmentTracker},
+ * split in one bucket per tick of the period by the hash of their uuid. Every tick only the bucket
+ * of that tick is queued, so the players are spread over the period. The queue runs until the time
+ * budget of the tick is spent, the rest is carried over to the next tick.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class CustomEnchantmentTicker {
+
+    // Time for all the effects in a tick, 2 ms of the 50 ms of a tick
+    private static final long TICK_BUDGET_NANOS = 2_000_000L;
+
+    // Schedules by enchantment ordinal
+    private static List<List<Schedule>> SCHEDULES = List.of();
+    private static final LinkedHashSet<Invocation> PENDING = new LinkedHashSet<>();
+    private static @Nullable BukkitTask TASK = null;
+    private static long TICK = 0;
+
+    private CustomEnchantmentTicker() {
+    }
+
+    /**
+     * Builds the schedules for the tick effects of some enchantments and starts the task if there are any.
+     * <br>
+     * Must be called before {@code CustomEnchantmentTracker.start(plugin)}, that adds the players online.
+     *
+     * @param plugin       the owning plugin instance
+     * @param enchantments the enchantments, ordered by ordinal
+     */
+    static void start(Plugin plugin, Collection<AbstractCustomEnchantment> enchantments) {
+        List<List<Schedule>> schedules = new ArrayList<>(enchantments.size());
+        int effects = 0;
+        for (AbstractCustomEnchantment abstractCustomEnchantment : enchantments) {
+            List<Schedule> enchantmentSchedules = new ArrayList<>();
+            for (EnchantmentTickEffect effect : abstractCustomEnchantment.getTickEffects()) {
+                enchantmentSchedules.add(new Schedule(effect));
+            }
+            schedules.add(List.copyOf(enchantmentSchedules));
+            effects += enchantmentSchedules.size();
+        }
+        SCHEDULES = List.copyOf(schedules);
+        PENDING.clear();
+
+        if (TASK != null) {
+            TASK.cancel();
+            TASK = null;
+        }
+        if (effects > 0) {
+            TASK = plugin.getServer().getScheduler().runTaskTimer(plugin, CustomEnchantmentTicker::tick, 1L, 1L);
+            LoggerUtils.info("Scheduled " + effects + " tick effects for Custom Enchantments.");
+        }
+    }
+
+    /**
+     * Adds or removes a tracked player from the schedules of an enchantment.
+     *
+     * @param equipped the equipment of the player
+     * @param ordinal  the enchantment ordinal
+     * @param active   {@code true} if the enchantment is now active
+     */
+    static void onActiveChanged(CustomEnchantmentTracker.Equipped equipped, int ordinal, boolean active) {
+        if (ordinal >= SCHEDULES.size()) {
+            return;
+        }
+        for (Schedule schedule : SCHEDULES.get(ordinal)) {
+            LinkedHashSet<CustomEnchantmentTracker.Equipped> bucket = schedule.bucket(equipped);
+            if (active) {
+                bucket.add(equipped);
+            } else {
+                bucket.remove(equipped);
+            }
+        }
+    }
+
+    private static void tick() {
+        long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+        TICK++;
+        for (List<Schedule> enchantmentSchedules : SCHEDULES) {
+            for (Schedule schedule : enchantmentSchedules) {
+                for (CustomEnchantmentTracker.Equipped equipped : schedule.buckets.get((int) (TICK % schedule.buckets.size()))) {
+                    PENDING.add(new Invocation(schedule.effect, equipped));
+                }
+            }
+        }
+
+        Iterator<Invocation> iterator = PENDING.iterator();
+        // At least one run per tick, so a slow effect cannot stall the queue
+        while (iterator.hasNext()) {
+            Invocation invocation = iterator.next();
+            iterator.remove();
+            invocation.run();
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        if (!PENDING.isEmpty()) {
+            LoggerUtils.debug("Custom enchantment tick effects over budget, " + PENDING.size() + " carried over to the next tick");
+        }
+    }
+
+    /**
+     * The players of a tick effect, one bucket per tick of the period.
+     */
+    private static final class Schedule {
+
+        private final EnchantmentTickEffect effect;
+        private final List<LinkedHashSet<CustomEnchantmentTracker.Equipped>> buckets;
+
+        private Schedule(EnchantmentTickEffect effect) {
+            this.effect = effect;
+            this.buckets = new ArrayList<>(effect.period());
+            for (int i = 0; i < effect.period(); i++) {
+                this.buckets.add(new LinkedHashSet<>());
+            }
+        }
+
+        private LinkedHashSet<CustomEnchantmentTracker.Equipped> bucket(CustomEnchantmentTracker.Equipped equipped) {
+            Player player = equipped.player();
+            int hash = player == null ? 0 : player.getUniqueId().hashCode();
+            return this.buckets.get(Math.floorMod(hash, this.buckets.size()));
+        }
+
+    }
+
+    /**
+     * A queued run of an effect for a player, the same run is only queued once.
+     *
+     * @param effect   the effect
+     * @param equipped the equipment of the player
+     */
+    private record Invocation(EnchantmentTickEffect effect, CustomEnchantmentTracker.Equipped equipped) {
+
+        private void run() {
+            Player player = this.equipped.player();
+            int ordinal = this.effect.enchantment().getOrdinal();
+            int level = this.equipped.activeLevel(ordinal);
+            // The player may have quit or unequipped the enchantment while queued
+            if (player == null || level <= 0 || !player.isOnline()) {
+                return;
+            }
+            try {
+                this.effect.handler().tick(player, level);
+            } catch (Throwable e) {
+                LoggerUtils.error("Could not run the tick effect of the custom enchantment %s for %s".formatted(this.effect.enchantment().getKey().asString(), player.getName()), e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments;
+
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
+import io.papermc.paper.event.entity.EntityEquipmentChangedEvent;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.EquipmentSlotGroup;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Cache of the custom enchantments equipped by each online player.
+ * <p>
+ * For each player the levels of every equipment slot are kept, plus the max level of each
+ * enchantment over the slots in its {@link AbstractCustomEnchantment#getActiveSlots()}. The cache
+ * is filled on join and updated from {@link EntityEquipmentChangedEvent}, that covers armor changes,
+ * the held slot, swapping hands and inventory clicks, so reading it costs no item access.
+ * </p>
+ * <b>Note:</b> the equipment changes are detected by the server at the end of the tick, so the
+ * cache can be one tick behind the inventory.
+ */
+@ApiStatus.Internal
+public class CustomEnchantmentTracker implements Listener {
+
+    private static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+    private static final Map<UUID, Equipped> EQUIPPED = new HashMap<>();
+    // For each enchantment ordinal, a bitmask of the slot ordinals where it is active
+    private static int[] ACTIVE_SLOTS = new int[0];
+    // Bitmask of the slot ordinals where some enchantment is active
+    private static int USED_SLOTS = 0;
+    private static @Nullable CustomEnchantmentTracker LISTENER = null;
+
+    /**
+     * Builds the active slots of the enchantments, tracks the players already online and registers the listener.
+     *
+     * @param plugin the owning plugin instance
+     */
+    static void start(Plugin plugin) {
+        int[] activeSlots = new int[CustomEnchantmentManager.getEnchantmentCount()];
+        for (int ordinal = 0; ordinal < activeSlots.length; ordinal++) {
+            for (EquipmentSlotGroup slotGroup : CustomEnchantmentManager.getEnchantmentByOrdinal(ordinal).getActiveSlots()) {
+                for (EquipmentSlot slot : SLOTS) {
+                    if (slotGroup.test(slot)) {
+                        activeSlots[ordinal] |= 1 << slot.ordinal();
+                    }
+                }
+            }
+        }
+        int usedSlots = 0;
+        for (int slots : activeSlots) {
+            usedSlots |= slots;
+        }
+        ACTIVE_SLOTS = activeSlots;
+        USED_SLOTS = usedSlots;
+        EQUIPPED.values().forEach(Equipped::untrack);
+        EQUIPPED.clear();
+        Bukkit.getOnlinePlayers().forEach(CustomEnchantmentTracker::track);
+
+        if (LISTENER != null) {
+            HandlerList.unregisterAll(LISTENER);
+        }
+        LISTENER = new CustomEnchantmentTracker();
+        plugin.getServer().getPluginManager().registerEvents(LISTENER, plugin);
+    }
+
+    /**
+     * Gets the cached equipment of a player.
+     *
+     * @param player the player
+     * @return the equipment, or {@code null} if the player is not tracked
+     */
+    static @Nullable Equipped get(Player player) {
+        return EQUIPPED.get(player.getUniqueId());
+    }
+
+    /**
+     * Gets the levels of the custom enchantments active on an entity.
+     * <br>
+     * The equipment is read, one item for each slot where some enchantment is active. The cache of the
+     * tracked players is not used, it can be one tick behind the event.
+     *
+     * @param entity the entity
+     * @return the levels indexed by ordinal
+     */
+    static int[] activeLevels(LivingEntity entity) {
+        int[] activeSlots = ACTIVE_SLOTS;
+        int[] levels = new int[activeSlots.length];
+        EntityEquipment equipment = entity.getEquipment();
+        if (equipment == null) {
+            return levels;
+        }
+        for (EquipmentSlot slot : SLOTS) {
+            int slotBit = 1 << slot.ordinal();
+            if ((USED_SLOTS & slotBit) != 0 && entity.canUseEquipmentSlot(slot)) {
+                CustomEnchantmentManager.collectActiveLevels(equipment.getItem(slot), slotBit, activeSlots, levels);
+            }
+        }
+        return levels;
+    }
+
+    private static void track(Player player) {
+        Equipped previous = EQUIPPED.put(player.getUniqueId(), read(player, player));
+        if (previous != null) {
+            previous.untrack();
+        }
+    }
+
+    private static Equipped read(LivingEntity entity, @Nullable Player tracked) {
+        Equipped equipped = new Equipped(ACTIVE_SLOTS.length, tracked);
+        EntityEquipment equipment = entity.getEquipment();
+        if (equipment != null) {
+            for (EquipmentSlot slot : SLOTS) {
+                if (entity.canUseEquipmentSlot(slot)) {
+                    equipped.setSlot(slot, CustomEnchantmentManager.getAppliedEnchantmentLevels(equipment.getItem(slot)));
+                }
+            }
+        }
+        equipped.aggregate();
+        return equipped;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        track(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Equipped equipped = EQUIPPED.remove(event.getPlayer().getUniqueId());
+        if (equipped != null) {
+            equipped.untrack();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityEquipmentChanged(EntityEquipmentChangedEvent event) {
+        if (!(event.getEntity() instanceof Player player)) {
+            return;
+        }
+        Equipped equipped = EQUIPPED.get(player.getUniqueId());
+        if (equipped == null) {
+            return;
+        }
+        event.getEquipmentChanges().forEach((slot, change) -> equipped.setSlot(slot, CustomEnchantmentManager.getAppliedEnchantmentLevels(change.newItem())));
+        equipped.aggregate();
+    }
+
+    /**
+     * The custom enchantments equipped by a player.
+     */
+    static final class Equipped {
+
+        private final @Nullable Player player;
+        // Levels by slot ordinal and then by enchantment ordinal
+        private final int[][] slotLevels;
+        private final int[] activeLevels;
+        private final BitSet active;
+
+        private Equipped(int enchantments, @Nullable Player player) {
+            this.player = player;
+            this.slotLevels = new int[SLOTS.length][enchantments];
+            this.activeLevels = new int[enchantments];
+            this.active = new BitSet(enchantments);
+        }
+
+        /**
+         * Gets the player of this equipment.
+         *
+         * @return the player, or {@code null} if the entity is not tracked
+         */
+        @Nullable Player player() {
+            return this.player;
+        }
+
+        private void setSlot(EquipmentSlot slot, int[] levels) {
+            System.arraycopy(levels, 0, this.slotLevels[slot.ordinal()], 0, Math.min(levels.length, this.activeLevels.length));
+        }
+
+        private void aggregate() {
+            int[] activeSlots = ACTIVE_SLOTS;
+            for (int ordinal = 0; ordinal < this.activeLevels.length; ordinal++) {
+                int level = 0;
+                for (int slot = 0; slot < this.slotLevels.length; slot++) {
+                    if ((activeSlots[ordinal] & (1 << slot)) != 0) {
+                        level = Math.max(level, this.slotLevels[slot][ordinal]);
+                    }
+                }
+                this.activeLevels[ordinal] = level;
+                if (this.active.get(ordinal) != level > 0) {
+                    this.active.set(ordinal, level > 0);
+                    if (this.player != null) {
+                        CustomEnchantmentTicker.onActiveChanged(this, ordinal, level > 0);
+                    }
+                }
+            }
+        }
+
+        private void untrack() {
+            if (this.player != null) {
+                this.active.stream().forEach(ordinal -> CustomEnchantmentTicker.onActiveChanged(this, ordinal, false));
+            }
+        }
+
+        /**
+         * Gets the level of an enchantment over its active slots.
+         *
+         * @param ordinal the enchantment ordinal
+         * @return the max level, or 0 if it is not active
+         */
+        int activeLevel(int ordinal) {
+            return this.active.get(ordinal) ? this.activeLevels[ordinal] : 0;
+        }
+
+        /**
+         * Gets the level of an enchantment in a slot, active or not.
+         *
+         * @param slot    the slot
+         * @param ordinal the enchantment ordinal
+         * @return the level, or 0 if the item in the slot does not have it
+         */
+        int slotLevel(EquipmentSlot slot, int ordinal) {
+            return this.slotLevels[slot.ordinal()][ordinal];
+        }
+
+    }
+
+}
@@ -1,6 +1,8 @@
 package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
 
+import com.google.common.base.Preconditions;
 import dev.mrdoc.minecraft.dlibcustomextension.DLibCustomExtensionManager;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.CustomEnchantmentManager;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
 import io.papermc.paper.datacomponent.DataComponentTypes;
 import io.papermc.paper.datacomponent.item.ItemEnchantments;
@@ -16,6 +18,8 @@ import io.papermc.paper.registry.keys.tags.ItemTypeTagKeys;
 import io.papermc.paper.registry.tag.TagKey;
 import io.papermc.paper.tag.PreFlattenTagRegistrar;
 import io.papermc.paper.tag.TagEntry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -23,16 +27,34 @@ import java.util.stream.Collectors;
 import net.kyori.adventure.key.Key;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.ItemType;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Basic class for implementation of custom enchantments
  */
 public abstract non-sealed class AbstractCustomEnchantment extends AbstractBaseCustomEnchantment implements Listener {
 
+    private final List<EnchantmentSubscription<?>> subscriptions = new ArrayList<>();
+    private final List<EnchantmentTickEffect> tickEffects = new ArrayList<>();
+    private int ordinal = -1;
+    private volatile @Nullable Resolved resolved;
+
+    /**
+     * The registry handle of this enchantment and the books for each level, built once the registry is frozen.
+     *
+     * @param enchantment the bukkit enchantment
+     * @param books       the prototype books, the index is the level minus one
+     */
+    private record Resolved(Enchantment enchantment, ItemStack[] books) {
+    }
+
     /**
      * Constructor
      *
@@ -51,6 +73,98 @@ public abstract non-sealed class AbstractCustomEnchantment extends AbstractBaseC
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
+    /**
+     * Subscribe to an event, the handler is only called when the carrier has this enchantment.
+     * <br>
+     * Unlike an {@code @EventHandler} in this class, the event is routed by the manager, that reads
+     * the enchantments of the carrier once and calls only the enchantments present on it.
+     * <br>
+     * <b>Note:</b> must be called before the plugin is enabled, usually in the constructor.
+     *
+     * @param eventType the event class
+     * @param role      the carrier of this enchantment in the event
+     * @param handler   the handler, receives the level of this enchantment
+     * @param <E>       the event type
+     */
+    protected <E extends Event> void subscribe(Class<E> eventType, EnchantmentRole<? super E> role, EnchantmentHandler<? super E> handler) {
+        this.subscribe(eventType, EventPriority.NORMAL, false, role, handler);
+    }
+
+    /**
+     * Subscribe to an event, the handler is only called when the carrier has this enchantment.
+     * <br>
+     * <b>Note:</b> must be called before the plugin is enabled, usually in the constructor.
+     *
+     * @param eventType       the event class
+     * @param priority        the priority of the handler
+     * @param ignoreCancelled if {@code true} the handler is not called for cancelled events
+     * @param role            the carrier of this enchantment in the event
+     * @param handler         the handler, receives the level of this enchantment
+     * @param <E>             the event type
+     * @see #subscribe(Class, EnchantmentRole, EnchantmentHandler)
+     */
+    protected <E extends Event> void subscribe(Class<E> eventType, EventPriority priority, boolean ignoreCancelled, EnchantmentRole<? super E> role, EnchantmentHandler<? super E> handler) {
+        this.subscriptions.add(new EnchantmentSubscription<>(this, eventType, priority, ignoreCancelled, role, handler));
+    }
+
+    /**
+     * Get the events subscribed by this enchantment.
+     *
+     * @return the subscriptions
+     */
+    @ApiStatus.Internal
+    public List<EnchantmentSubscription<?>> getSubscriptions() {
+        return Collections.unmodifiableList(this.subscriptions);
+    }
+
+    /**
+     * Declare a periodic effect for the players with this enchantment in one of its active slots.
+     * <br>
+     * All the effects run from a single task of the library, that only iterates the players with the
+     * enchantment and spreads them over the ticks of the period, so each player runs the effect once
+     * every period. If the effects of a tick take too long the rest are run in the next ticks.
+     * <br>
+     * <b>Note:</b> must be called before the plugin is enabled, usually in the constructor.
+     *
+     * @param period  the ticks between two runs for the same player
+     * @param handler the effect, receives the active level of this enchantment
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    protected void tickEffect(int period, EnchantmentTickHandler handler) {
+        Preconditions.checkArgument(period > 0, "The period of a tick effect must be positive, was %s", period);
+        this.tickEffects.add(new EnchantmentTickEffect(this, period, handler));
+    }
+
+    /**
+     * Get the periodic effects declared by this enchantment.
+     *
+     * @return the tick effects
+     */
+    @ApiStatus.Internal
+    public List<EnchantmentTickEffect> getTickEffects() {
+        return Collections.unmodifiableList(this.tickEffects);
+    }
+
+    /**
+     * Get the ordinal of this enchantment, the index of its level in the arrays returned by
+     * {@link CustomEnchantmentManager#getEnchantmentLevels(ItemStack)}.
+     *
+     * @return the ordinal, or -1 if this enchantment was not loaded by the manager
+     */
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * Set the ordinal of this enchantment, assigned by the manager in load order.
+     *
+     * @param ordinal the ordinal
+     */
+    @ApiStatus.Internal
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
     /**
      * Get the key tag for items valid to this enchantment.
      *
@@ -79,7 +193,45 @@ public abstract non-sealed class AbstractCustomEnchantment extends AbstractBaseC
      * @return bukkit enchantment
      */
     public Enchantment getEnchantment() {
-        return RegistryAccess.registryAccess().getRegistry(RegistryKey.ENCHANTMENT).getOrThrow(this.getKey());
+        return this.resolve().enchantment();
+    }
+
+    /**
+     * Resolves the bukkit enchantment from the registry and builds the prototype books.
+     * <br>
+     * Called by the manager on enable, when the registry is already frozen.
+     */
+    @ApiStatus.Internal
+    public void resolveEnchantment() {
+        this.resolve();
+    }
+
+    private Resolved resolve() {
+        Resolved resolved = this.resolved;
+        if (resolved == null) {
+            // The result is always the same, a race only builds it twice
+            Enchantment enchantment = RegistryAccess.registryAccess().getRegistry(RegistryKey.ENCHANTMENT).getOrThrow(this.getKey());
+            ItemStack[] books = new ItemStack[enchantment.getMaxLevel()];
+            for (int i = 0; i < books.length; i++) {
+                books[i] = createEnchantmentBook(enchantment, i + 1);
+            }
+            resolved = new Resolved(enchantment, books);
+            this.resolved = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Get the level of this enchantment in an item.
+     *
+     * @param itemStack the item
+     * @return the level, or 0 if the item does not have this enchantment
+     */
+    public int getLevel(@Nullable ItemStack itemStack) {
+        if (itemStack == null || itemStack.isEmpty()) {
+            return 0;
+        }
+        return itemStack.getEnchantmentLevel(this.getEnchantment());
     }
 
     /**
@@ -102,8 +254,16 @@ public abstract non-sealed class AbstractCustomEnchantment extends AbstractBaseC
      * @return an {@link ItemStack} of {@link ItemType#ENCHANTED_BOOK} with this enchantment.
      */
     public ItemStack generateEnchantmentBook(int level) {
+        Resolved resolved = this.resolve();
+        if (level >= 1 && level <= resolved.books().length) {
+            return resolved.books()[level - 1].clone();
+        }
+        return createEnchantmentBook(resolved.enchantment(), level);
+    }
+
+    private static ItemStack createEnchantmentBook(Enchantment enchantment, int level) {
         ItemStack book = new ItemStack(Material.ENCHANTED_BOOK);
-        book.setData(DataComponentTypes.STORED_ENCHANTMENTS, ItemEnchantments.itemEnchantments(Map.of(this.getEnchantment(), level)));
+        book.setData(DataComponentTypes.STORED_ENCHANTMENTS, ItemEnchantments.itemEnchantments(Map.of(enchantment, level)));
         return book;
     }
 
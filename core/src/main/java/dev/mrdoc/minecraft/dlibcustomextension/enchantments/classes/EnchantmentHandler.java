@@ -0,0 +1,21 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
+
+import org.bukkit.event.Event;
+
+/**
+ * Handler of an event subscribed by a custom enchantment.
+ *
+ * @param <E> the event type
+ */
+@FunctionalInterface
+public interface EnchantmentHandler<E extends Event> {
+
+    /**
+     * Handles the event, only called if the carrier has the enchantment.
+     *
+     * @param event the event
+     * @param level the level of the enchantment in the carrier, always positive
+     */
+    void handle(E event, int level);
+
+}
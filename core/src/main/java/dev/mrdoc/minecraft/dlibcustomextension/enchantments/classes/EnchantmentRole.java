@@ -0,0 +1,81 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
+
+import java.util.function.Function;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.Event;
+import org.bukkit.inventory.ItemStack;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The carrier of a custom enchantment involved in an event.
+ * <br>
+ * An item role reads the enchantments of an item of the event, an entity role reads the
+ * enchantments equipped by an entity of the event in their active slots.
+ *
+ * @param <E> the event type
+ */
+public sealed interface EnchantmentRole<E extends Event> {
+
+    /**
+     * Creates a role for an item of the event.
+     *
+     * @param item gets the item from the event, or {@code null} if there is none
+     * @param <E>  the event type
+     * @return the role
+     */
+    static <E extends Event> EnchantmentRole<E> item(Function<? super E, ? extends @Nullable ItemStack> item) {
+        return new ItemRole<>(item);
+    }
+
+    /**
+     * Creates a role for an entity of the event.
+     * <br>
+     * The equipment of the entity is read when the event is routed, so it matches the event.
+     *
+     * @param entity gets the entity from the event, or {@code null} if there is none
+     * @param <E>    the event type
+     * @return the role
+     */
+    static <E extends Event> EnchantmentRole<E> entity(Function<? super E, ? extends @Nullable Entity> entity) {
+        return new EntityRole<>(entity);
+    }
+
+    /**
+     * Gets the carrier from the event.
+     *
+     * @param event the event
+     * @return the item or entity, or {@code null} if there is none
+     */
+    @Nullable Object carrier(E event);
+
+    /**
+     * A role for an item of the event.
+     *
+     * @param item gets the item from the event
+     * @param <E>  the event type
+     */
+    record ItemRole<E extends Event>(Function<? super E, ? extends @Nullable ItemStack> item) implements EnchantmentRole<E> {
+
+        @Override
+        public @Nullable ItemStack carrier(E event) {
+            return this.item.apply(event);
+        }
+
+    }
+
+    /**
+     * A role for an entity of the event.
+     *
+     * @param entity gets the entity from the event
+     * @param <E>    the event type
+     */
+    record EntityRole<E extends Event>(Function<? super E, ? extends @Nullable Entity> entity) implements EnchantmentRole<E> {
+
+        @Override
+        public @Nullable Entity carrier(E event) {
+            return this.entity.apply(event);
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+
+/**
+ * An event subscribed by a custom enchantment.
+ *
+ * @param enchantment     the enchantment
+ * @param eventType       the event class
+ * @param priority        the priority of the handler
+ * @param ignoreCancelled if {@code true} the handler is not called for cancelled events
+ * @param role            the carrier of the enchantment in the event
+ * @param handler         the handler
+ * @param <E>             the event type
+ */
+public record EnchantmentSubscription<E extends Event>(AbstractCustomEnchantment enchantment, Class<E> eventType, EventPriority priority, boolean ignoreCancelled, EnchantmentRole<? super E> role, EnchantmentHandler<? super E> handler) {
+}
@@ -0,0 +1,11 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
+
+/**
+ * A periodic effect declared by a custom enchantment.
+ *
+ * @param enchantment the enchantment
+ * @param period      the ticks between two runs for the same player
+ * @param handler     the effect
+ */
+public record EnchantmentTickEffect(AbstractCustomEnchantment enchantment, int period, EnchantmentTickHandler handler) {
+}
@@ -0,0 +1,19 @@
+package dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Periodic effect of a custom enchantment.
+ */
+@FunctionalInterface
+public interface EnchantmentTickHandler {
+
+    /**
+     * Runs the effect for a player that has the enchantment in one of its active slots.
+     *
+     * @param player the player
+     * @param level  the active level of the enchantment, always positive
+     */
+    void tick(Player player, int level);
+
+}
@@ -0,0 +1,240 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A crafting recipe compiled once into a flat form for matching crafting matrices.
+ * <p>
+ * Shaped recipes are trimmed to their bounding box and stored as a per-cell ingredient array,
+ * shapeless recipes as a plain ingredient array. Both 3x3 (crafting table, crafter) and 2x2
+ * (player inventory) matrices are supported.
+ * </p>
+ */
+final class CompiledCraftingRecipe {
+
+    private final boolean shaped;
+    private final int width;
+    private final int height;
+    /**
+     * The ingredient for each cell in the bounding box (row-major), {@code null} for an empty cell.
+     */
+    private final @Nullable CompiledIngredient[] cells;
+    /**
+     * Bit mask of the cells in the bounding box that require an ingredient.
+     */
+    private final int cellMask;
+    /**
+     * The ingredients of a shapeless recipe.
+     */
+    private final CompiledIngredient[] ingredients;
+
+    private CompiledCraftingRecipe(boolean shaped, int width, int height, @Nullable CompiledIngredient[] cells, int cellMask, CompiledIngredient[] ingredients) {
+        this.shaped = shaped;
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+        this.cellMask = cellMask;
+        this.ingredients = ingredients;
+    }
+
+    /**
+     * Compiles a recipe.
+     *
+     * @param recipe the recipe
+     * @return the compiled recipe, or {@code null} if is not a shaped or shapeless recipe
+     */
+    static @Nullable CompiledCraftingRecipe compile(Recipe recipe) {
+        if (recipe instanceof ShapedRecipe shapedRecipe) {
+            return compileShaped(shapedRecipe);
+        } else if (recipe instanceof ShapelessRecipe shapelessRecipe) {
+            List<RecipeChoice> choiceList = shapelessRecipe.getChoiceList();
+            CompiledIngredient[] ingredients = new CompiledIngredient[choiceList.size()];
+            for (int i = 0; i < ingredients.length; i++) {
+                ingredients[i] = CompiledIngredient.compile(choiceList.get(i));
+            }
+            return new CompiledCraftingRecipe(false, 0, 0, new CompiledIngredient[0], 0, ingredients);
+        }
+        return null;
+    }
+
+    private static CompiledCraftingRecipe compileShaped(ShapedRecipe shapedRecipe) {
+        String[] shape = shapedRecipe.getShape();
+        Map<Character, RecipeChoice> choiceMap = shapedRecipe.getChoiceMap();
+
+        int columns = 0;
+        for (String row : shape) {
+            columns = Math.max(columns, row.length());
+        }
+
+        // Trim the empty rows and columns
+        int minRow = Integer.MAX_VALUE, maxRow = -1, minCol = Integer.MAX_VALUE, maxCol = -1;
+        for (int row = 0; row < shape.length; row++) {
+            for (int col = 0; col < shape[row].length(); col++) {
+                if (choiceMap.get(shape[row].charAt(col)) != null) {
+                    minRow = Math.min(minRow, row);
+                    maxRow = Math.max(maxRow, row);
+                    minCol = Math.min(minCol, col);
+                    maxCol = Math.max(maxCol, col);
+                }
+            }
+        }
+
+        if (maxRow < 0) {
+            return new CompiledCraftingRecipe(true, 0, 0, new CompiledIngredient[0], 0, new CompiledIngredient[0]);
+        }
+
+        int width = maxCol - minCol + 1;
+        int height = maxRow - minRow + 1;
+        CompiledIngredient[] cells = new CompiledIngredient[width * height];
+        int cellMask = 0;
+        for (int row = 0; row < height; row++) {
+            String shapeRow = shape[row + minRow];
+            for (int col = 0; col < width; col++) {
+                int shapeCol = col + minCol;
+                RecipeChoice recipeChoice = shapeCol < shapeRow.length() ? choiceMap.get(shapeRow.charAt(shapeCol)) : null;
+                if (recipeChoice != null) {
+                    cells[row * width + col] = CompiledIngredient.compile(recipeChoice);
+                    cellMask |= 1 << (row * width + col);
+                }
+            }
+        }
+        return new CompiledCraftingRecipe(true, width, height, cells, cellMask, new CompiledIngredient[0]);
+    }
+
+    /**
+     * Checks if every ingredient of this recipe only depends on the type, amount and signature of the
+     * items, so the result for a matrix can be reused while its {@link MatrixFingerprint} does not change.
+     *
+     * @return {@code true} if there is no generic choice
+     */
+    boolean isSignatureBased() {
+        for (CompiledIngredient cell : this.cells) {
+            if (cell != null && !cell.isSignatureBased()) {
+                return false;
+            }
+        }
+        for (CompiledIngredient ingredient : this.ingredients) {
+            if (!ingredient.isSignatureBased()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates a matrix against this recipe.
+     *
+     * @param matrix the matrix of ingredients
+     * @return {@code true} if is valid
+     */
+    boolean matches(CraftingMatrix matrix) {
+        return this.match(matrix, null) >= 0;
+    }
+
+    /**
+     * Validates a matrix and computes the crafts allowed by it in one pass.
+     *
+     * @param matrix   the matrix of ingredients (2x2 or 3x3, extra slots like the crafter result are ignored)
+     * @param required optional array of the matrix size, filled with the amount consumed from each slot by one craft
+     * @return the max crafts allowed by the matrix, or {@code -1} if the matrix is not valid for this recipe
+     */
+    int match(CraftingMatrix matrix, int @Nullable [] required) {
+        int side = matrix.size() >= 9 ? 3 : matrix.size() >= 4 ? 2 : 0;
+        if (side == 0) {
+            return -1;
+        }
+        if (required != null) {
+            Arrays.fill(required, 0);
+        }
+        return this.shaped ? this.matchShaped(matrix, side, required) : this.matchShapeless(matrix, side, required);
+    }
+
+    private int matchShaped(CraftingMatrix matrix, int side, int @Nullable [] required) {
+        if (this.width > side || this.height > side) {
+            return -1;
+        }
+        for (int rowOffset = 0; rowOffset <= side - this.height; rowOffset++) {
+            for (int colOffset = 0; colOffset <= side - this.width; colOffset++) {
+                int crafts = this.matchShapedAt(matrix, side, rowOffset, colOffset, required);
+                if (crafts >= 0) {
+                    return crafts;
+                }
+                if (required != null) {
+                    Arrays.fill(required, 0);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int matchShapedAt(CraftingMatrix matrix, int side, int rowOffset, int colOffset, int @Nullable [] required) {
+        int crafts = Integer.MAX_VALUE;
+        for (int index = 0; index < side * side; index++) {
+            int row = index / side - rowOffset;
+            int col = index % side - colOffset;
+            int cell = row * this.width + col;
+            boolean inside = row >= 0 && row < this.height && col >= 0 && col < this.width;
+
+            if (!inside || (this.cellMask & (1 << cell)) == 0) {
+                if (!matrix.isEmpty(index)) {
+                    return -1;
+                }
+                continue;
+            }
+
+            int amount = this.cells[cell].match(matrix, index);
+            if (amount <= 0) {
+                return -1;
+            }
+            crafts = Math.min(crafts, matrix.get(index).getAmount() / amount);
+            if (required != null) {
+                required[index] = amount;
+            }
+        }
+        return crafts == Integer.MAX_VALUE ? 0 : crafts;
+    }
+
+    private int matchShapeless(CraftingMatrix matrix, int side, int @Nullable [] required) {
+        int crafts = Integer.MAX_VALUE;
+        int usedIngredients = 0;
+        for (int index = 0; index < side * side; index++) {
+            if (matrix.isEmpty(index)) {
+                continue;
+            }
+
+            int amount = 0;
+            for (int i = 0; i < this.ingredients.length; i++) {
+                if ((usedIngredients & (1 << i)) != 0) {
+                    continue;
+                }
+                amount = this.ingredients[i].match(matrix, index);
+                if (amount > 0) {
+                    usedIngredients |= 1 << i;
+                    break;
+                }
+            }
+
+            if (amount <= 0) {
+                return -1;
+            }
+            crafts = Math.min(crafts, matrix.get(index).getAmount() / amount);
+            if (required != null) {
+                required[index] = amount;
+            }
+        }
+
+        // If there are any unused ingredients left over, the matrix is invalid
+        if (Integer.bitCount(usedIngredients) != this.ingredients.length) {
+            return -1;
+        }
+        return crafts == Integer.MAX_VALUE ? 0 : crafts;
+    }
+
+}
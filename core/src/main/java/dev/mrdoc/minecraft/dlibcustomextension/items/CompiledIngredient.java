@@ -0,0 +1,169 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.bukkit.Material;
+import org.bukkit.Registry;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.ItemType;
+import org.bukkit.inventory.RecipeChoice;
+
+/**
+ * A recipe ingredient compiled for matching items in a crafting matrix.
+ * <ul>
+ *     <li>{@link RecipeChoice.ExactChoice} is a map of {@link IngredientSignature} to the required amounts.</li>
+ *     <li>{@link RecipeChoice.MaterialChoice} (including tags) and {@link RecipeChoice.ItemTypeChoice} are a bitset of {@link Material} ordinals.</li>
+ *     <li>Any other choice uses {@link RecipeChoice#test(ItemStack)}.</li>
+ * </ul>
+ */
+abstract sealed class CompiledIngredient permits CompiledIngredient.Exact, CompiledIngredient.Materials, CompiledIngredient.Generic {
+
+    /**
+     * Compiles a recipe choice.
+     *
+     * @param recipeChoice the recipe choice
+     * @return the compiled ingredient
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    static CompiledIngredient compile(RecipeChoice recipeChoice) {
+        if (recipeChoice instanceof RecipeChoice.ExactChoice exactChoice) {
+            Map<IngredientSignature, int[]> amounts = new HashMap<>();
+            for (ItemStack choice : exactChoice.getChoices()) {
+                if (choice == null || choice.isEmpty()) {
+                    continue;
+                }
+                amounts.merge(IngredientSignature.of(choice), new int[]{choice.getAmount()}, CompiledIngredient::concat);
+            }
+            return new Exact(Map.copyOf(amounts));
+        } else if (recipeChoice instanceof RecipeChoice.MaterialChoice materialChoice) {
+            BitSet materials = new BitSet();
+            for (Material material : materialChoice.getChoices()) {
+                materials.set(material.ordinal());
+            }
+            return new Materials(materials);
+        } else if (recipeChoice instanceof RecipeChoice.ItemTypeChoice itemTypeChoice) {
+            BitSet materials = new BitSet();
+            itemTypeChoice.itemTypes().forEach(itemTypeTypedKey -> {
+                ItemType itemType = Registry.ITEM.get(itemTypeTypedKey);
+                if (itemType != null) {
+                    materials.set(itemType.createItemStack().getType().ordinal());
+                }
+            });
+            return new Materials(materials);
+        }
+        return new Generic(recipeChoice);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Matches the item in a slot of the matrix against this ingredient.
+     *
+     * @param matrix the crafting matrix
+     * @param slot   the slot to check
+     * @return the amount required by one craft, or {@code 0} if the item does not match
+     */
+    final int match(CraftingMatrix matrix, int slot) {
+        if (matrix.isEmpty(slot)) {
+            return 0;
+        }
+        return this.matchItem(matrix, slot);
+    }
+
+    /**
+     * Matches a non-empty slot of the matrix against this ingredient.
+     *
+     * @param matrix the crafting matrix
+     * @param slot   the slot to check
+     * @return the amount required by one craft, or {@code 0} if the item does not match
+     */
+    abstract int matchItem(CraftingMatrix matrix, int slot);
+
+    /**
+     * Checks if this ingredient only depends on the type, amount and {@link IngredientSignature} of the items.
+     *
+     * @return {@code false} for choices tested by {@link RecipeChoice#test(ItemStack)}
+     */
+    boolean isSignatureBased() {
+        return true;
+    }
+
+    /**
+     * Exact items, matched by signature.
+     */
+    static final class Exact extends CompiledIngredient {
+
+        /**
+         * The amounts of the candidates with each signature, in the choice order.
+         */
+        private final Map<IngredientSignature, int[]> amounts;
+
+        private Exact(Map<IngredientSignature, int[]> amounts) {
+            this.amounts = amounts;
+        }
+
+        @Override
+        int matchItem(CraftingMatrix matrix, int slot) {
+            int[] candidates = this.amounts.get(matrix.signature(slot));
+            if (candidates == null) {
+                return 0;
+            }
+            int itemAmount = matrix.get(slot).getAmount();
+            for (int amount : candidates) {
+                if (itemAmount >= amount) {
+                    return Math.max(1, amount);
+                }
+            }
+            return 0;
+        }
+
+    }
+
+    /**
+     * A set of materials, matched by ordinal.
+     */
+    static final class Materials extends CompiledIngredient {
+
+        private final BitSet materials;
+
+        private Materials(BitSet materials) {
+            this.materials = materials;
+        }
+
+        @Override
+        int matchItem(CraftingMatrix matrix, int slot) {
+            return this.materials.get(matrix.get(slot).getType().ordinal()) ? 1 : 0;
+        }
+
+    }
+
+    /**
+     * Any other recipe choice.
+     */
+    static final class Generic extends CompiledIngredient {
+
+        private final RecipeChoice recipeChoice;
+
+        private Generic(RecipeChoice recipeChoice) {
+            this.recipeChoice = recipeChoice;
+        }
+
+        @Override
+        int matchItem(CraftingMatrix matrix, int slot) {
+            return this.recipeChoice.test(matrix.get(slot)) ? 1 : 0;
+        }
+
+        @Override
+        boolean isSignatureBased() {
+            return false;
+        }
+
+    }
+
+}
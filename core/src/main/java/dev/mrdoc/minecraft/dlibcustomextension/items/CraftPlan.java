@@ -0,0 +1,42 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import java.util.function.IntFunction;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The reduction of a crafting matrix: the amount consumed from each slot by one craft and the crafts to process.
+ *
+ * @param required the amount consumed from each matrix slot by one craft, {@code 0} for untouched slots
+ * @param crafts   the crafts to process, {@code 0} if the matrix cannot be reduced
+ */
+record CraftPlan(int[] required, int crafts) {
+
+    /**
+     * A plan that does not reduce anything.
+     */
+    static final CraftPlan NONE = new CraftPlan(new int[0], 0);
+
+    /**
+     * Applies this plan to the live inventory, replacing only the slots that change.
+     *
+     * @param inventory  the inventory holding the matrix
+     * @param slotOffset the inventory slot of the first matrix slot
+     * @param slotReader gets the current item of a matrix slot, like {@code matrix::get}
+     */
+    void applyTo(Inventory inventory, int slotOffset, IntFunction<@Nullable ItemStack> slotReader) {
+        for (int slot = 0; slot < this.required.length; slot++) {
+            if (this.required[slot] <= 0) {
+                continue;
+            }
+            ItemStack itemStack = slotReader.apply(slot);
+            if (itemStack == null) {
+                continue;
+            }
+            int amount = itemStack.getAmount() - this.required[slot] * this.crafts;
+            inventory.setItem(slot + slotOffset, amount > 0 ? itemStack.asQuantity(amount) : null);
+        }
+    }
+
+}
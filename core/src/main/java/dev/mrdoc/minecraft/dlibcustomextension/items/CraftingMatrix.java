@@ -0,0 +1,146 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import java.util.Objects;
+import net.kyori.adventure.key.Key;
+import org.bukkit.inventory.ItemStack;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A crafting matrix read once per event.
+ * <br>
+ * The custom item key and the {@link IngredientSignature} of each slot are computed on first use and
+ * shared by every recipe check of the same event.
+ */
+final class CraftingMatrix {
+
+    private final @Nullable ItemStack[] items;
+    private final @Nullable IngredientSignature[] signatures;
+    private final @Nullable Key[] customKeys;
+    private final boolean[] customKeysRead;
+
+    private CraftingMatrix(@Nullable ItemStack[] items) {
+        this.items = items;
+        this.signatures = new IngredientSignature[items.length];
+        this.customKeys = new Key[items.length];
+        this.customKeysRead = new boolean[items.length];
+    }
+
+    /**
+     * Wraps the items of a crafting matrix.
+     *
+     * @param items the items of the matrix
+     * @return the crafting matrix
+     */
+    static CraftingMatrix of(@Nullable ItemStack[] items) {
+        return new CraftingMatrix(items);
+    }
+
+    /**
+     * Gets the raw items of this matrix.
+     *
+     * @return the items
+     */
+    @Nullable ItemStack[] items() {
+        return this.items;
+    }
+
+    /**
+     * Gets the amount of slots in this matrix.
+     *
+     * @return the size
+     */
+    int size() {
+        return this.items.length;
+    }
+
+    /**
+     * Gets the item in a slot.
+     *
+     * @param slot the slot
+     * @return the item or {@code null}
+     */
+    @Nullable ItemStack get(int slot) {
+        return this.items[slot];
+    }
+
+    /**
+     * Checks if a slot is empty.
+     *
+     * @param slot the slot
+     * @return {@code true} if the slot is empty
+     */
+    boolean isEmpty(int slot) {
+        ItemStack itemStack = this.items[slot];
+        return itemStack == null || itemStack.isEmpty();
+    }
+
+    /**
+     * Gets the custom item key of the item in a slot, reading it only once.
+     *
+     * @param slot the slot
+     * @return the key, or {@code null} if the slot is empty or not a custom item
+     */
+    @Nullable Key customKey(int slot) {
+        if (!this.customKeysRead[slot]) {
+            this.customKeys[slot] = CustomItemsManager.getInternalKey(this.items[slot]);
+            this.customKeysRead[slot] = true;
+        }
+        return this.customKeys[slot];
+    }
+
+    /**
+     * Checks if any slot has a registered custom item, using the material prefilter before reading
+     * the key of each item.
+     *
+     * @return {@code true} if some item is a custom item
+     */
+    boolean containsCustomItem() {
+        for (int slot = 0; slot < this.items.length; slot++) {
+            if (!this.isEmpty(slot) && CustomItemsManager.isCustomMaterial(Objects.requireNonNull(this.items[slot]).getType())) {
+                if (CustomItemsManager.resolveKey(this.customKey(slot)) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the signature of the item in a slot, computing it only once.
+     *
+     * @param slot the slot, must not be empty
+     * @return the signature
+     */
+    IngredientSignature signature(int slot) {
+        IngredientSignature signature = this.signatures[slot];
+        if (signature == null) {
+            ItemStack itemStack = this.items[slot];
+            if (itemStack == null) {
+                throw new IllegalStateException("The slot %d is empty".formatted(slot));
+            }
+            signature = IngredientSignature.of(itemStack, this.customKey(slot));
+            this.signatures[slot] = signature;
+        }
+        return signature;
+    }
+
+    /**
+     * Computes the fingerprint of this matrix from the amount and signature of each slot.
+     * <br>
+     * The signatures are kept, so the recipe check after a miss does not read them again.
+     *
+     * @return the fingerprint
+     */
+    MatrixFingerprint fingerprint() {
+        int[] amounts = new int[this.items.length];
+        @Nullable IngredientSignature[] signatures = new IngredientSignature[this.items.length];
+        for (int slot = 0; slot < this.items.length; slot++) {
+            if (!this.isEmpty(slot)) {
+                amounts[slot] = Objects.requireNonNull(this.items[slot]).getAmount();
+                signatures[slot] = this.signature(slot);
+            }
+        }
+        return new MatrixFingerprint(amounts, signatures);
+    }
+
+}
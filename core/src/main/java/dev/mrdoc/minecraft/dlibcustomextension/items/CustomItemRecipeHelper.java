@@ -1,20 +1,13 @@
 package dev.mrdoc.minecraft.dlibcustomextension.items;
 
 import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractCustomItem;
-import dev.mrdoc.minecraft.dlibcustomextension.utils.item.RecipeChoiceUtils;
-import io.papermc.paper.datacomponent.DataComponentTypes;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import org.apache.commons.lang3.tuple.Pair;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.Keyed;
+import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.CraftingRecipe;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
-import org.bukkit.inventory.RecipeChoice;
-import org.bukkit.inventory.ShapedRecipe;
-import org.bukkit.inventory.ShapelessRecipe;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
@@ -24,384 +17,161 @@ import org.jspecify.annotations.Nullable;
  * Provides utilities for extracting items from recipe choices, validating crafting matrices
  * against recipes, and calculating the results of recipe applications.
  * </p>
+ * <p>
+ * Recipes are compiled once into a {@link CompiledCraftingRecipe}, custom recipes when are registered
+ * and vanilla recipes the first time they are checked.
+ * </p>
  */
 @NullMarked
 public class CustomItemRecipeHelper {
 
+    private static final Map<NamespacedKey, CompiledCraftingRecipe> COMPILED_RECIPES = new ConcurrentHashMap<>();
+
     /**
-     * Check the ingredients for a custom item.
+     * Compiles and caches the recipe of a custom item.
+     * <br>
+     * Called when the recipe is registered, so the crafting events never compile it.
      *
-     * @param customItem  the custom item
-     * @param matrixCraft the matrix of ingredients
-     * @return {@code true} if is valid
+     * @param customItem the custom item
      */
-    static boolean validateRecipeIngredients(final AbstractCustomItem customItem, final @Nullable ItemStack @Nullable [] matrixCraft) {
-        if (customItem.getRecipe() == null) {
-            return false;
+    static void compileRecipe(final AbstractCustomItem customItem) {
+        if (!customItem.isMaterialized()) {
+            return; // A lazy item not built yet has no recipe registered
+        }
+        if (customItem.getRecipe() instanceof CraftingRecipe craftingRecipe) {
+            CompiledCraftingRecipe compiledRecipe = CompiledCraftingRecipe.compile(craftingRecipe);
+            if (compiledRecipe != null) {
+                COMPILED_RECIPES.put(craftingRecipe.getKey(), compiledRecipe);
+            }
         }
-        return validateRecipeIngredients(customItem.getRecipe(), matrixCraft);
     }
 
     /**
-     * Check the ingredients for a custom item.
-     *
-     * @param recipe      the custom recipe
-     * @param matrixCraft the matrix of ingredients
-     * @return {@code true} if is valid
+     * Clears all the compiled recipes.
      */
-    @SuppressWarnings("ConstantConditions")
-    static boolean validateRecipeIngredients(final Recipe recipe, final @Nullable ItemStack @Nullable [] matrixCraft) {
-        // We validate that the matrix is always of size 9 (3x3)
-        if (matrixCraft == null || matrixCraft.length != 9) {
-            return false;
-        }
-
-        if (recipe instanceof ShapedRecipe shapedRecipe) {
-            String[] shape = shapedRecipe.getShape();
-            Map<Character, RecipeChoice> ingredientMap = shapedRecipe.getChoiceMap();
-
-            int recipeRows = shape.length;
-            int recipeCols = shape[0].length(); // Se asume que todas las filas tienen la misma longitud
-
-            for (int rowOffset = 0; rowOffset <= 3 - recipeRows; rowOffset++) {
-                for (int colOffset = 0; colOffset <= 3 - recipeCols; colOffset++) {
-                    boolean matched = true;
-
-                    outerLoop:
-                    for (int row = 0; row < recipeRows; row++) {
-                        String shapeRow = shape[row];
-                        for (int col = 0; col < recipeCols; col++) {
-                            char slot = shapeRow.charAt(col);
-                            int matrixIndex = ((row + rowOffset) * 3) + (col + colOffset);
-
-                            ItemStack matrixItem = matrixCraft[matrixIndex];
+    static void clearCompiledRecipes() {
+        COMPILED_RECIPES.clear();
+    }
 
-                            if (slot == ' ' || !ingredientMap.containsKey(slot)) {
-                                if (matrixItem != null && !matrixItem.isEmpty()) {
-                                    matched = false;
-                                    break outerLoop;
-                                }
-                            } else {
-                                RecipeChoice requiredChoice = ingredientMap.get(slot);
-                                if (!validateIngredient(matrixItem, requiredChoice)) {
-                                    matched = false;
-                                    break outerLoop;
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Clears the compiled recipes and compiles again the custom recipes.
+     * <br>
+     * Vanilla recipes are compiled on demand, so this is needed when the server recipes are reloaded.
+     */
+    static void recompileRecipes() {
+        clearCompiledRecipes();
+        CustomItemsManager.compileAllRecipes();
+    }
 
-                    // Si alguna disposición hace match, la receta es válida
-                    if (matched) return true;
-                }
+    /**
+     * Gets the compiled form of a recipe, compiling it if is not cached.
+     *
+     * @param recipe the recipe
+     * @return the compiled recipe, or {@code null} if is not a shaped or shapeless recipe
+     */
+    static @Nullable CompiledCraftingRecipe getCompiledRecipe(final Recipe recipe) {
+        if (recipe instanceof Keyed keyed) {
+            CompiledCraftingRecipe compiledRecipe = COMPILED_RECIPES.get(keyed.getKey());
+            if (compiledRecipe != null) {
+                return compiledRecipe;
             }
-
-            return false;
-        } else if (recipe instanceof ShapelessRecipe shapelessRecipe) {
-            List<RecipeChoice> ingredients = new ArrayList<>(shapelessRecipe.getChoiceList());
-
-            for (ItemStack itemMatrix : matrixCraft) {
-                if (itemMatrix != null && !itemMatrix.isEmpty()) {
-                    boolean matched = false;
-
-                    Iterator<RecipeChoice> iterator = ingredients.iterator();
-                    while (iterator.hasNext()) {
-                        RecipeChoice requiredChoice = iterator.next();
-                        if (validateIngredient(itemMatrix, requiredChoice)) {
-                            iterator.remove();
-                            matched = true;
-                            break;
-                        }
-                    }
-
-                    if (!matched) {
-                        return false;
-                    }
-                }
+            compiledRecipe = CompiledCraftingRecipe.compile(recipe);
+            if (compiledRecipe != null) {
+                COMPILED_RECIPES.put(keyed.getKey(), compiledRecipe);
             }
-
-            return ingredients.isEmpty(); // If there are any unused ingredients left over, the array is invalid
+            return compiledRecipe;
         }
-
-        return true;
+        return CompiledCraftingRecipe.compile(recipe);
     }
 
     /**
-     * Validate and compare an item with the recipe item ingredient.
+     * Check the ingredients for a custom item.
      *
-     * @param itemMatrix   the item in craft matrix
-     * @param recipeChoice the recipe choice to compare
+     * @param customItem  the custom item
+     * @param matrixCraft the matrix of ingredients
      * @return {@code true} if is valid
      */
-    private static boolean validateIngredient(@Nullable ItemStack itemMatrix, @Nullable RecipeChoice recipeChoice) {
-        if (recipeChoice == null) {
-            return true; // Slot not required
-        }
-
-        if (itemMatrix == null || itemMatrix.isEmpty()) {
-            return false;
-        }
-
-        if (recipeChoice instanceof RecipeChoice.ExactChoice exactChoice) {
-            for (ItemStack choice : exactChoice.getChoices()) {
-                if (validateIngredient(itemMatrix, choice)) {
-                    return true;
-                }
-            }
+    static boolean validateRecipeIngredients(final AbstractCustomItem customItem, final CraftingMatrix matrixCraft) {
+        if (customItem.getRecipe() == null) {
             return false;
         }
-
-        return recipeChoice.test(itemMatrix);
+        return validateRecipeIngredients(customItem.getRecipe(), matrixCraft);
     }
 
     /**
-     * Validate and compare an item with the recipe item ingredient.
+     * Check the ingredients for a custom item.
      *
-     * @param itemMatrix   the item in craft matrix
-     * @param itemInRecipe the item in the recipe
+     * @param recipe      the custom recipe
+     * @param matrixCraft the matrix of ingredients (2x2 or 3x3)
      * @return {@code true} if is valid
      */
-    @SuppressWarnings("UnstableApiUsage")
-    private static boolean validateIngredient(@Nullable ItemStack itemMatrix, @Nullable ItemStack itemInRecipe) {
-        if (itemInRecipe == null || itemInRecipe.isEmpty()) {
-            return true; // Slot not required
-        }
-
-        if (itemMatrix == null || itemMatrix.isEmpty() || itemMatrix.getAmount() < itemInRecipe.getAmount()) {
-            return false;
-        }
-
-        if (itemMatrix.getType() != itemInRecipe.getType()) {
-            return false;
-        }
-
-        if (!Objects.equals(CustomItemsManager.getInternalKey(itemInRecipe), CustomItemsManager.getInternalKey(itemMatrix))) {
-            return false;
-        }
-
-        if (itemMatrix.hasData(DataComponentTypes.ITEM_MODEL) && itemInRecipe.hasData(DataComponentTypes.ITEM_MODEL)) {
-            if (!Objects.equals(itemMatrix.getData(DataComponentTypes.ITEM_MODEL), itemInRecipe.getData(DataComponentTypes.ITEM_MODEL))) {
-                return false;
-            }
-        } else if (itemMatrix.hasData(DataComponentTypes.ITEM_MODEL) || itemInRecipe.hasData(DataComponentTypes.ITEM_MODEL)) {
-            return false;
-        }
-
-        if (itemMatrix.hasData(DataComponentTypes.CUSTOM_MODEL_DATA) && itemInRecipe.hasData(DataComponentTypes.CUSTOM_MODEL_DATA)) {
-            return Objects.equals(itemMatrix.getData(DataComponentTypes.CUSTOM_MODEL_DATA), itemInRecipe.getData(DataComponentTypes.CUSTOM_MODEL_DATA));
-        } else {
-            return !itemMatrix.hasData(DataComponentTypes.CUSTOM_MODEL_DATA) && !itemInRecipe.hasData(DataComponentTypes.CUSTOM_MODEL_DATA);
+    static boolean validateRecipeIngredients(final Recipe recipe, final CraftingMatrix matrixCraft) {
+        CompiledCraftingRecipe compiledRecipe = getCompiledRecipe(recipe);
+        if (compiledRecipe == null) {
+            return true;
         }
+        return compiledRecipe.matches(matrixCraft);
     }
 
     /**
-     * Get the amount of an item in a recipe choice.
+     * Counts the crafts allowed by a matrix, without reducing it.
      *
-     * @param itemMatrix   the item in craft matrix
-     * @param recipeChoice the recipe choice
-     * @return the amount
+     * @param craftingRecipe the craft recipe
+     * @param matrix         the matrix of ingredients
+     * @return the crafts limited to a stack of the result, or {@code -1} if the matrix is not valid for the recipe
      */
-    private static int getRecipeChoiceAmount(@Nullable ItemStack itemMatrix, @Nullable RecipeChoice recipeChoice) {
-        if (recipeChoice == null || itemMatrix == null || itemMatrix.isEmpty()) {
+    static int countCrafts(final CraftingRecipe craftingRecipe, final CraftingMatrix matrix) {
+        CompiledCraftingRecipe compiledRecipe = getCompiledRecipe(craftingRecipe);
+        if (compiledRecipe == null) {
             return 0;
         }
-
-        for (ItemStack itemStackChoice : RecipeChoiceUtils.getRecipeChoiceItemStacks(recipeChoice)) {
-            if (validateIngredient(itemMatrix, itemStackChoice)) {
-                return itemStackChoice.getAmount();
-            }
-        }
-
-        return 0;
+        int maxCrafts = compiledRecipe.match(matrix, null);
+        return maxCrafts < 0 ? -1 : Math.min(maxCrafts, craftingRecipe.getResult().getMaxStackSize());
     }
 
     /**
-     * Reduce a matrix using a recipe.
+     * Checks if the prepare craft result of a recipe can be memoized by {@link MatrixFingerprint}.
      *
      * @param craftingRecipe the craft recipe
-     * @param matrix         the matrix to reduce
-     * @return a pair with the matrix result and the item result size
+     * @return {@code true} if the recipe is matched only by type and signature
      */
-    static Pair<@Nullable ItemStack @Nullable [], Integer> reduceMatrix(final CraftingRecipe craftingRecipe, final @Nullable ItemStack @Nullable [] matrix) {
-        return reduceMatrix(craftingRecipe, matrix, false);
+    static boolean isMemoizable(final CraftingRecipe craftingRecipe) {
+        CompiledCraftingRecipe compiledRecipe = getCompiledRecipe(craftingRecipe);
+        return compiledRecipe != null && compiledRecipe.isSignatureBased();
     }
 
     /**
-     * Reduce a matrix using a recipe.
+     * Plans the reduction of a matrix using a recipe.
+     * <br>
+     * The matrix is not modified, use {@link CraftPlan#applyTo} for apply the plan.
      *
      * @param craftingRecipe the craft recipe
      * @param matrix         the matrix to reduce
      * @param processAll     true for try the max of reduction
-     * @return a pair with the matrix result and the item result size
+     * @return the plan, {@link CraftPlan#NONE} if the matrix cannot be reduced
      */
-    static Pair<@Nullable ItemStack @Nullable [], Integer> reduceMatrix(final CraftingRecipe craftingRecipe, final @Nullable ItemStack @Nullable [] matrix, final boolean processAll) {
-        Objects.requireNonNull(matrix);
-        // We clone the matrix to work without modifying the original
-        ItemStack[] matrixResult = Objects.requireNonNull(cloneMatrix(matrix));
-        int maxCrafts; // We initialize with a very high value to reduce
-
-        // We get the maximum allowed per stack from the recipe result
-        int maxPerStack = craftingRecipe.getResult().getMaxStackSize();
-        int craftsToProcess = 0;
-
-        if (craftingRecipe instanceof ShapedRecipe shapedRecipe) {
-            String[] shape = shapedRecipe.getShape();
-            Map<Character, RecipeChoice> ingredientMap = shapedRecipe.getChoiceMap();
-
-            int recipeRows = shape.length;
-            int recipeCols = shape[0].length();
-
-            for (int rowOffset = 0; rowOffset <= 3 - recipeRows; rowOffset++) {
-                for (int colOffset = 0; colOffset <= 3 - recipeCols; colOffset++) {
-                    boolean matched = true;
-                    int offsetMaxCrafts = Integer.MAX_VALUE;
-
-                    outerLoop:
-                    for (int row = 0; row < recipeRows; row++) {
-                        String shapeRow = shape[row];
-                        for (int col = 0; col < recipeCols; col++) {
-                            char slot = shapeRow.charAt(col);
-                            int matrixIndex = ((row + rowOffset) * 3) + (col + colOffset);
-                            ItemStack matrixItem = matrix[matrixIndex];
-
-                            if (slot == ' ' || !ingredientMap.containsKey(slot)) {
-                                if (matrixItem != null && !matrixItem.isEmpty()) {
-                                    matched = false;
-                                    break outerLoop;
-                                }
-                                continue;
-                            }
-
-                            RecipeChoice requiredChoice = ingredientMap.get(slot);
-                            if (!validateIngredient(matrixItem, requiredChoice)) {
-                                matched = false;
-                                break outerLoop;
-                            }
-
-                            int recipeAmount = getRecipeChoiceAmount(matrixItem, requiredChoice);
-                            if (recipeAmount > 0) {
-                                int possibleCrafts = matrixItem.getAmount() / recipeAmount;
-                                offsetMaxCrafts = Math.min(offsetMaxCrafts, possibleCrafts);
-                            }
-                        }
-                    }
-
-                    if (matched) {
-                        maxCrafts = offsetMaxCrafts;
-                        // We limit the max crafts for avoid more than an stack
-                        maxCrafts = Math.min(maxCrafts, maxPerStack);
-
-                        // If cannot process all then limit to 1 craft
-                        craftsToProcess = processAll ? maxCrafts : 1;
-
-                        for (int row = 0; row < recipeRows; row++) {
-                            String shapeRow = shape[row];
-                            for (int col = 0; col < recipeCols; col++) {
-                                char slot = shapeRow.charAt(col);
-                                if (slot == ' ' || !ingredientMap.containsKey(slot)) continue;
-
-                                int matrixIndex = ((row + rowOffset) * 3) + (col + colOffset);
-                                RecipeChoice requiredChoice = ingredientMap.get(slot);
-                                ItemStack matrixItem = matrixResult[matrixIndex];
-                                // We need to validate which choice matched to subtract the correct amount
-                                if (requiredChoice instanceof RecipeChoice.ExactChoice exactChoice) {
-                                    for (ItemStack choice : exactChoice.getChoices()) {
-                                        if (validateIngredient(matrixItem, choice)) {
-                                            int amountToSubtract = choice.getAmount() * craftsToProcess;
-                                            matrixResult[matrixIndex] = Objects.requireNonNull(matrixItem).clone().subtract(amountToSubtract);
-                                            break;
-                                        }
-                                    }
-                                } else {
-                                    int amountToSubtract = getRecipeChoiceAmount(matrixItem, requiredChoice) * craftsToProcess;
-                                    matrixResult[matrixIndex] = Objects.requireNonNull(matrixItem).clone().subtract(amountToSubtract);
-                                }
-                            }
-                        }
-                        return Pair.of(matrixResult, craftsToProcess);
-                    }
-                }
-            }
-        } else if (craftingRecipe instanceof ShapelessRecipe shapelessRecipe) {
-            // ShapelessRecipe Process
-            List<RecipeChoice> recipeIngredients = shapelessRecipe.getChoiceList();
-            int possibleCraftsTotal = Integer.MAX_VALUE;
-
-            // Accurate calculation of maxCrafts for Shapeless
-            // For each ingredient in the recipe, we sum all matching items in the matrix
-            // and divide by the amount required by that specific ingredient/variant match.
-            for (RecipeChoice ingredient : recipeIngredients) {
-                int totalAvailableForIngredient = 0;
-                int requiredAmount = 0;
-
-                for (ItemStack item : matrix) {
-                    if (item != null && validateIngredient(item, ingredient)) {
-                        totalAvailableForIngredient += item.getAmount();
-                        if (requiredAmount == 0) {
-                            requiredAmount = getRecipeChoiceAmount(item, ingredient);
-                        }
-                    }
-                }
-
-                if (requiredAmount > 0) {
-                    possibleCraftsTotal = Math.min(possibleCraftsTotal, totalAvailableForIngredient / requiredAmount);
-                } else {
-                    possibleCraftsTotal = 0;
-                    break;
-                }
-            }
-
-            maxCrafts = Math.min(possibleCraftsTotal, maxPerStack);
-            craftsToProcess = processAll ? maxCrafts : 1;
-
-            if (craftsToProcess > 0) {
-                boolean[] usedSlots = new boolean[matrixResult.length];
-                for (RecipeChoice ingredient : recipeIngredients) {
-                    for (int i = 0; i < matrixResult.length; i++) {
-                        if (usedSlots[i]) {
-                            continue;
-                        }
-                        ItemStack matrixItem = matrixResult[i];
-                        if (matrixItem != null && validateIngredient(matrixItem, ingredient)) {
-                            int amountRequired = getRecipeChoiceAmount(matrixItem, ingredient);
-                            int amountToSubtract = amountRequired * craftsToProcess;
-                            matrixResult[i] = matrixItem.clone().subtract(amountToSubtract);
-                            usedSlots[i] = true;
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-
-        // If the max craft is zero then return the matrix with 0 size
-        if (craftsToProcess == 0) {
-            return Pair.of(matrix, 0);
+    static CraftPlan planReduction(final CraftingRecipe craftingRecipe, final CraftingMatrix matrix, final boolean processAll) {
+        CompiledCraftingRecipe compiledRecipe = getCompiledRecipe(craftingRecipe);
+        if (compiledRecipe == null) {
+            return CraftPlan.NONE;
         }
 
-        // Return the matrix updated and the max craft allowed
-        return Pair.of(matrixResult, craftsToProcess);
-    }
+        // Validation and the amount consumed per slot in one pass
+        int[] required = new int[matrix.size()];
+        int maxCrafts = compiledRecipe.match(matrix, required);
 
-    /**
-     * Clone this matrix.
-     *
-     * @param matrix the original matrix
-     * @return a copied matrix
-     */
-    private static @Nullable ItemStack @Nullable [] cloneMatrix(final @Nullable ItemStack @Nullable [] matrix) {
-        Objects.requireNonNull(matrix);
-        @Nullable ItemStack[] clonedMatrix = new ItemStack[matrix.length];
+        // We limit the max crafts for avoid more than an stack, if cannot process all then limit to 1 craft
+        int craftsToProcess = Math.min(maxCrafts, craftingRecipe.getResult().getMaxStackSize());
+        if (!processAll) {
+            craftsToProcess = Math.min(craftsToProcess, 1);
+        }
 
-        for (int i = 0; i < matrix.length; i++) {
-            if (matrix[i] == null) {
-                clonedMatrix[i] = null; // Si el elemento es null, mantener null en la nueva matriz
-            } else {
-                clonedMatrix[i] = Objects.requireNonNull(matrix[i]).clone(); // Clonar cada ItemStack individualmente
-            }
+        // If the max craft is zero then nothing is reduced
+        if (craftsToProcess <= 0) {
+            return CraftPlan.NONE;
         }
 
-        return clonedMatrix;
+        return new CraftPlan(required, craftsToProcess);
     }
 
 }
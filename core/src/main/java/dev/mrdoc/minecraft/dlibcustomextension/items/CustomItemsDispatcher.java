@@ -0,0 +1,56 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractCustomItem;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Central listener that routes item events to the owning custom item.
+ * <p>
+ * Instead of every {@link AbstractCustomItem} listening and checking the event item by itself,
+ * this listener resolves the custom item once per event and only calls the matching definition.
+ * </p>
+ */
+@ApiStatus.Internal
+public class CustomItemsDispatcher implements Listener {
+
+    @EventHandler
+    public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
+        if (!event.getHand().toString().contains("HAND")) {
+            return;
+        }
+        CustomItemsManager.getCustomItem(event.getPlayer().getInventory().getItemInMainHand()).ifPresent(customItem -> customItem.playerInteractEntity(event));
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        if (event.getAction().equals(Action.PHYSICAL) || event.getItem() == null) {
+            return;
+        }
+        CustomItemsManager.getCustomItem(event.getItem()).ifPresent(customItem -> customItem.playerInteract(event));
+    }
+
+    @EventHandler
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        CustomItemsManager.getCustomItem(event.getItem().getItemStack()).ifPresent(customItem -> customItem.entityPickupItem(event));
+    }
+
+    @EventHandler
+    public void onPlayerDropItem(PlayerDropItemEvent event) {
+        CustomItemsManager.getCustomItem(event.getItemDrop().getItemStack()).ifPresent(customItem -> customItem.playerDropItem(event));
+    }
+
+    @EventHandler
+    public void onPlayerItemConsume(PlayerItemConsumeEvent event) {
+        CustomItemsManager.getCustomItem(event.getItem()).ifPresent(customItem -> customItem.onPlayerItemConsumeEvent(event));
+    }
+
+}
@@ -1,15 +1,19 @@
 package dev.mrdoc.minecraft.dlibcustomextension.items;
 
 import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractCustomItem;
-import java.util.Arrays;
+import io.papermc.paper.event.server.ServerResourcesReloadedEvent;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
-import org.apache.commons.lang3.tuple.Pair;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
 import org.bukkit.block.Crafter;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
@@ -17,9 +21,11 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.CrafterCraftEvent;
 import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.inventory.PrepareItemCraftEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.CrafterInventory;
 import org.bukkit.inventory.CraftingRecipe;
 import org.bukkit.inventory.Inventory;
@@ -32,12 +38,34 @@ import org.jspecify.annotations.Nullable;
  */
 public class CustomItemsListener implements Listener {
 
+    /**
+     * Last prepare craft result for each viewer, reused while the matrix does not change.
+     */
+    private final Map<UUID, PreparedCraft> preparedCrafts = new HashMap<>();
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         final Player player = event.getPlayer();
         CustomItemsManager.handleAvailableRecipes(player);
     }
 
+    @EventHandler
+    public void onServerResourcesReloaded(ServerResourcesReloadedEvent event) {
+        // Vanilla recipes can change after a reload, drop the compiled copies
+        CustomItemRecipeHelper.recompileRecipes();
+        this.preparedCrafts.clear();
+    }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        this.preparedCrafts.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.preparedCrafts.remove(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onCrafterCraftItem(CrafterCraftEvent event) {
         if (event.isCancelled()) {
@@ -54,20 +82,27 @@ public class CustomItemsListener implements Listener {
                 return;
             }
 
-            if (event.getBlock().getState() instanceof Crafter crafter) {
-                Inventory inventory = crafter.getSnapshotInventory();
-                @Nullable ItemStack [] matrix = inventory.getContents().clone();
-                if (!(customItem.getRecipe() instanceof CraftingRecipe craftingRecipe)) {
-                    event.setCancelled(true);
-                    return;
-                }
-                if (CustomItemRecipeHelper.validateRecipeIngredients(customItem, matrix)) {
-                    inventory.setContents(CustomItemRecipeHelper.reduceMatrix(craftingRecipe, matrix).getKey());
-                    crafter.update(true);
-                    return;
-                }
+            // The live state avoids a snapshot of the tile entity on every craft
+            final Block block = event.getBlock();
+            if (!(block.getState(false) instanceof Crafter crafter)) {
+                return;
+            }
+            final Inventory inventory = crafter.getInventory();
+
+            if (!(customItem.getRecipe() instanceof CraftingRecipe craftingRecipe)) {
+                event.setCancelled(true);
+                return;
+            }
+
+            // The contents can change in many ways between crafts (hoppers, explosions, plugins), so every craft is validated
+            final CraftingMatrix matrix = CraftingMatrix.of(inventory.getContents());
+            if (!CustomItemRecipeHelper.validateRecipeIngredients(customItem, matrix)) {
                 event.setCancelled(true);
+                return;
             }
+
+            final CraftPlan craftPlan = CustomItemRecipeHelper.planReduction(craftingRecipe, matrix, false);
+            craftPlan.applyTo(inventory, 0, matrix::get);
         }
     }
 
@@ -100,7 +135,8 @@ public class CustomItemsListener implements Listener {
                 return;
             }
 
-            if (!CustomItemRecipeHelper.validateRecipeIngredients(customItem, event.getInventory().getMatrix())) {
+            final CraftingMatrix matrix = CraftingMatrix.of(event.getInventory().getMatrix());
+            if (!CustomItemRecipeHelper.validateRecipeIngredients(customItem, matrix)) {
                 humanWhoClicked.sendMessage(Component.translatable("dlce.items.craftitem.failed.crafting_invalid_for_recipe", NamedTextColor.RED));
                 event.setCancelled(true);
                 return;
@@ -108,16 +144,16 @@ public class CustomItemsListener implements Listener {
 
             event.setCancelled(true); // Necesito cancelar el evento porque sino va a procesar igualmente la matrix 1 vez
 
-            Pair<@Nullable ItemStack @Nullable [], Integer> resultCraft = CustomItemRecipeHelper.reduceMatrix(craftingRecipe, event.getInventory().getMatrix(), event.isShiftClick());
-            event.getInventory().setMatrix(Objects.requireNonNull(resultCraft.getLeft())); // Reemplazamos matrix
+            final CraftPlan craftPlan = CustomItemRecipeHelper.planReduction(craftingRecipe, matrix, event.isShiftClick());
+            craftPlan.applyTo(event.getInventory(), 1, matrix::get); // Reducimos la matrix, el slot 0 es el resultado
 
-            final ItemStack itemResult = customItem.getItemForPlayer(resultCraft.getRight());
+            final ItemStack itemResult = customItem.getItemForPlayer(craftPlan.crafts());
 
             if (event.isShiftClick()) {
                 humanWhoClicked.getInventory().addItem(itemResult).forEach((integer, itemStack) -> humanWhoClicked.getWorld().dropItem(humanWhoClicked.getLocation(), itemStack));
             } else if (humanWhoClicked.getItemOnCursor().isEmpty()) {
                 humanWhoClicked.setItemOnCursor(itemResult);
-            } else if (Objects.equals(CustomItemsManager.getInternalKey(humanWhoClicked.getItemOnCursor()), CustomItemsManager.getInternalKey(itemResult))) {
+            } else if (CustomItemsManager.resolve(humanWhoClicked.getItemOnCursor()) == customItem) {
                 if (humanWhoClicked.getItemOnCursor().getAmount() >= humanWhoClicked.getItemOnCursor().getMaxStackSize()) {
                     humanWhoClicked.getInventory().addItem(itemResult).forEach((integer, itemStack) -> humanWhoClicked.getWorld().dropItem(humanWhoClicked.getLocation(), itemStack));
                 } else {
@@ -137,6 +173,7 @@ public class CustomItemsListener implements Listener {
         }
 
         Recipe recipeEvent = event.getRecipe();
+        final CraftingMatrix matrix = CraftingMatrix.of(event.getInventory().getMatrix());
 
         Optional<AbstractCustomItem> baseItemOptional = CustomItemsManager.getCustomItem(recipeEvent.getResult());
 
@@ -158,20 +195,19 @@ public class CustomItemsListener implements Listener {
                 event.getInventory().setResult(new ItemStack(Material.AIR));
                 return;
             }
-            if (!CustomItemRecipeHelper.validateRecipeIngredients(customItem, event.getInventory().getMatrix())) {
+            final PreparedCraft preparedCraft = this.prepareCraft(event.getView().getPlayer().getUniqueId(), craftingRecipe, matrix);
+            if (!preparedCraft.valid()) {
                 event.getViewers().forEach(viewer -> viewer.sendActionBar(Component.translatable("dlce.items.precraftitem.failed.crafting_invalid_for_recipe", customItem.getItem().displayName()).color(NamedTextColor.RED)));
                 event.getInventory().setResult(new ItemStack(Material.AIR));
                 return;
             }
 
-            Pair<@Nullable ItemStack @Nullable [], Integer> resultCraft = CustomItemRecipeHelper.reduceMatrix(craftingRecipe, event.getInventory().getMatrix(), true);
-            Component messagePossibleCraftsComponent = Component.translatable("dlce.items.precraftitem.message.crafting_size_result", Component.text(resultCraft.getRight(), TextColor.fromHexString("#69b5ff"))).color(TextColor.fromHexString("#ff9a1c"));
+            Component messagePossibleCraftsComponent = Component.translatable("dlce.items.precraftitem.message.crafting_size_result", Component.text(preparedCraft.crafts(), TextColor.fromHexString("#69b5ff"))).color(TextColor.fromHexString("#ff9a1c"));
             event.getViewers().forEach(viewer -> viewer.sendActionBar(messagePossibleCraftsComponent));
         } else {
             // Bloquear crafteo si algún ingrediente es un item custom no permitido
-            if (Arrays.stream(event.getInventory().getMatrix()).anyMatch(itemStack ->
-                    CustomItemsManager.getCustomItem(itemStack).isPresent())) {
-                if (!CustomItemRecipeHelper.validateRecipeIngredients(event.getRecipe(), event.getInventory().getMatrix())) {
+            if (matrix.containsCustomItem()) {
+                if (!CustomItemRecipeHelper.validateRecipeIngredients(recipeEvent, matrix)) {
                     event.getViewers().forEach(viewer -> viewer.sendActionBar(Component.translatable("dlce.items.precraftitem.failed.crafting_contains_unsupported_custom_item", NamedTextColor.RED)));
                     event.getInventory().setResult(new ItemStack(Material.AIR));
                 }
@@ -179,6 +215,47 @@ public class CustomItemsListener implements Listener {
         }
     }
 
+    /**
+     * Validates a matrix and counts the possible crafts, reusing the last result of the viewer if the
+     * recipe and the matrix fingerprint did not change.
+     * <br>
+     * Recipes with generic choices can depend on any data of the items, so they are never memoized.
+     *
+     * @param viewerId       the viewer of the crafting inventory
+     * @param craftingRecipe the recipe of the custom item
+     * @param matrix         the crafting matrix
+     * @return the prepared craft
+     */
+    private PreparedCraft prepareCraft(UUID viewerId, CraftingRecipe craftingRecipe, CraftingMatrix matrix) {
+        if (!CustomItemRecipeHelper.isMemoizable(craftingRecipe)) {
+            this.preparedCrafts.remove(viewerId);
+            final int crafts = CustomItemRecipeHelper.countCrafts(craftingRecipe, matrix);
+            return new PreparedCraft(craftingRecipe.getKey(), null, crafts >= 0, Math.max(crafts, 0));
+        }
+
+        final MatrixFingerprint fingerprint = matrix.fingerprint();
+        final PreparedCraft cached = this.preparedCrafts.get(viewerId);
+        if (cached != null && cached.recipeKey().equals(craftingRecipe.getKey()) && fingerprint.equals(cached.fingerprint())) {
+            return cached;
+        }
+
+        final int crafts = CustomItemRecipeHelper.countCrafts(craftingRecipe, matrix);
+        final PreparedCraft preparedCraft = new PreparedCraft(craftingRecipe.getKey(), fingerprint, crafts >= 0, Math.max(crafts, 0));
+        this.preparedCrafts.put(viewerId, preparedCraft);
+        return preparedCraft;
+    }
+
+    /**
+     * The result of a prepare craft for a matrix.
+     *
+     * @param recipeKey   the recipe checked
+     * @param fingerprint the fingerprint of the matrix, {@code null} if the result is not memoized
+     * @param valid       if the matrix is valid for the recipe
+     * @param crafts      the possible crafts
+     */
+    private record PreparedCraft(NamespacedKey recipeKey, @Nullable MatrixFingerprint fingerprint, boolean valid, int crafts) {
+    }
+
     @EventHandler
     public void onCrafterView(InventoryOpenEvent event) {
         if (!(event.getInventory() instanceof CrafterInventory crafterInventory)) {
@@ -197,7 +274,7 @@ public class CustomItemsListener implements Listener {
             inventory.setItem(9, new ItemStack(Material.BARRIER));
 
             if (!customItem.isEnabled() ||
-                    !CustomItemRecipeHelper.validateRecipeIngredients(customItem, inventory.getContents())) {
+                    !CustomItemRecipeHelper.validateRecipeIngredients(customItem, CraftingMatrix.of(inventory.getContents()))) {
                 inventory.setItem(9, new ItemStack(Material.AIR));
                 inventory.getViewers().forEach(viewer ->
                         viewer.sendActionBar(Component.translatable("dlce.items.crafter.failed.crafting_invalid_for_recipe", NamedTextColor.RED)));
@@ -3,16 +3,26 @@ package dev.mrdoc.minecraft.dlibcustomextension.items;
 import dev.mrdoc.minecraft.dlibcustomextension.DLibCustomExtensionManager;
 import dev.mrdoc.minecraft.dlibcustomextension.items.annotations.CustomItemContainer;
 import dev.mrdoc.minecraft.dlibcustomextension.items.annotations.CustomItemContainerProcessor;
+import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractBaseCustomItem;
 import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractCustomItem;
 import dev.mrdoc.minecraft.dlibcustomextension.items.commands.DisplayItemCustomCommand;
 import dev.mrdoc.minecraft.dlibcustomextension.items.commands.GiveItemCustomCommand;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.AnnotationProcessorUtil;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.EnabledSnapshot;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigHolder;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.item.ItemStackUtils;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.persistence.PersistentDataKey;
-import java.io.File;
-import java.util.Arrays;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.CustomRegistry;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionIndex;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -21,13 +31,17 @@ import java.util.stream.Collectors;
 import lombok.SneakyThrows;
 import net.kyori.adventure.key.Key;
 import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
-import org.spongepowered.configurate.CommentedConfigurationNode;
-import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
 
 /**
  * The CustomItemsManager class is responsible for managing custom items in the plugin.
@@ -37,24 +51,119 @@ import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
 public class CustomItemsManager {
 
     private static @Nullable NamespacedKey NAMESPACED_CUSTOM_ITEM;
-    private static final HashSet<AbstractCustomItem> CUSTOM_ITEMS = new HashSet<>();
+    private static @Nullable NamespacedKey NAMESPACED_RECIPES_FINGERPRINT;
+    private static volatile CustomRegistry<AbstractCustomItem> CUSTOM_ITEMS = createRegistry();
+    /**
+     * Ordinals of the base materials used by the custom items.
+     */
+    private static volatile MaterialFilter CUSTOM_MATERIALS = new MaterialFilter(new BitSet(), 0);
+    /**
+     * Recipes handled on join, reset when the items or the config change.
+     */
+    private static volatile @Nullable RecipeDiscovery RECIPE_DISCOVERY = null;
+    /**
+     * Lazy items waiting for their recipe, registered one each tick. Only used from the main thread.
+     */
+    private static final Set<AbstractCustomItem> PENDING_RECIPES = new LinkedHashSet<>();
+    private static @Nullable BukkitTask PENDING_RECIPES_TASK = null;
 
     // Config
-    private static final String CONFIG_FILE_NAME = "config-custom-items.yaml";
-    private static @Nullable YamlConfigurationLoader CONFIG_LOADER;
-    private static @Nullable CommentedConfigurationNode CONFIG_NODE;
-    private static @Nullable CustomItemConfig CONFIG;
+    private static final ConfigHolder<CustomItemConfig> CONFIG = new ConfigHolder<>("config-custom-items.yaml", CustomItemConfig.class, config -> EnabledSnapshot.of(config.isEnabled(), config.getNameItems()));
+
+    static {
+        CONFIG.onReload(CustomItemsManager::onConfigReload);
+    }
+
+    /**
+     * Resets the state that depends on the enabled items after a config reload.
+     * <br>
+     * Disabled lazy items are never built, so the ones enabled by this reload are queued for their recipe.
+     */
+    private static void onConfigReload() {
+        RECIPE_DISCOVERY = null;
+        setCustomMaterials(CUSTOM_ITEMS);
+        if (CUSTOM_ITEMS.values().stream().noneMatch(CustomItemsManager::isPendingLazyItem)) {
+            return;
+        }
+        // The config can be published from other thread, the queue is only used on the main thread
+        if (Bukkit.isPrimaryThread()) {
+            queuePendingLazyRecipes();
+        } else {
+            Bukkit.getScheduler().runTask(DLibCustomExtensionManager.getPluginInstance(), CustomItemsManager::queuePendingLazyRecipes);
+        }
+    }
+
+    /**
+     * Checks if an item is lazy, not built and enabled, so its recipe is not registered yet.
+     *
+     * @param customItem the item
+     * @return {@code true} if the recipe must be registered
+     */
+    private static boolean isPendingLazyItem(AbstractCustomItem customItem) {
+        return customItem.isLazy() && !customItem.isMaterialized() && customItem.isEnabled();
+    }
+
+    /**
+     * Queues the recipes of the lazy items enabled after they were skipped by {@link #registerAllRecipes()}.
+     */
+    private static void queuePendingLazyRecipes() {
+        for (AbstractCustomItem customItem : CUSTOM_ITEMS.values()) {
+            if (isPendingLazyItem(customItem)) {
+                PENDING_RECIPES.add(customItem);
+            }
+        }
+        schedulePendingRecipes();
+    }
+
+    /**
+     * Starts the task that registers the queued recipes, if it is not running.
+     */
+    private static void schedulePendingRecipes() {
+        if (PENDING_RECIPES_TASK == null && !PENDING_RECIPES.isEmpty()) {
+            PENDING_RECIPES_TASK = Bukkit.getScheduler().runTaskTimer(DLibCustomExtensionManager.getPluginInstance(), CustomItemsManager::registerNextPendingRecipe, 1L, 1L);
+        }
+    }
+
+    /**
+     * Builds a queued lazy item and registers its recipe, the recipes are sent to the players once the queue is empty.
+     */
+    private static void registerNextPendingRecipe() {
+        Iterator<AbstractCustomItem> iterator = PENDING_RECIPES.iterator();
+        if (iterator.hasNext()) {
+            AbstractCustomItem customItem = iterator.next();
+            iterator.remove();
+            // Can be disabled or replaced while queued
+            if (CUSTOM_ITEMS.getByKey(customItem.getKey()) == customItem && customItem.isEnabled()) {
+                registerRecipe(customItem);
+            }
+            if (!PENDING_RECIPES.isEmpty()) {
+                return;
+            }
+        }
+        cancelPendingRecipes();
+        Bukkit.updateRecipes();
+    }
+
+    private static void cancelPendingRecipes() {
+        PENDING_RECIPES.clear();
+        if (PENDING_RECIPES_TASK != null) {
+            PENDING_RECIPES_TASK.cancel();
+            PENDING_RECIPES_TASK = null;
+        }
+    }
 
     /**
      * Loads and initializes the manager, its configuration, items, and events.
      */
     public static void load() {
         NAMESPACED_CUSTOM_ITEM = new NamespacedKey(DLibCustomExtensionManager.getPluginInstance(), "custom_item");
+        NAMESPACED_RECIPES_FINGERPRINT = new NamespacedKey(DLibCustomExtensionManager.getPluginInstance(), "custom_item_recipes");
         loadConfig();
         loadAllCustomItems();
         registerAllRecipes();
         registerAllCommands();
         Bukkit.getPluginManager().registerEvents(new CustomItemsListener(), DLibCustomExtensionManager.getPluginInstance());
+        Bukkit.getPluginManager().registerEvents(new CustomItemsDispatcher(), DLibCustomExtensionManager.getPluginInstance());
     }
 
     /**
@@ -71,8 +180,7 @@ public class CustomItemsManager {
      */
     @SneakyThrows
     public static void saveConfig() {
-        Objects.requireNonNull(CONFIG_NODE).set(CustomItemConfig.class, CONFIG); // Update the backing node
-        Objects.requireNonNull(CONFIG_LOADER).save(CONFIG_NODE); // Write to the original file
+        CONFIG.save(); // Write to the original file
     }
 
     /**
@@ -80,13 +188,8 @@ public class CustomItemsManager {
      */
     @SneakyThrows
     private static void loadConfig() {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(DLibCustomExtensionManager.getPluginInstance().getDataFolder(), CONFIG_FILE_NAME).toPath())
-                .build();
-
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from file
-        CONFIG = CONFIG_NODE.get(CustomItemConfig.class); // Populate object
-        saveConfig(); // force a save
+        CONFIG.load(DLibCustomExtensionManager.getPluginInstance().getDataFolder().toPath()); // Load from file
+        saveConfig(); // force a save, skipped if the file does not change
     }
 
     /**
@@ -94,12 +197,50 @@ public class CustomItemsManager {
      */
     @SneakyThrows
     public static void reloadConfig() {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(DLibCustomExtensionManager.getPluginInstance().getDataFolder(), CONFIG_FILE_NAME).toPath())
-                .build();
+        CONFIG.reload(); // Load from file
+    }
+
+    /**
+     * Starts reading the custom item configuration in background, the next load waits for it.
+     *
+     * @param dataFolder the plugin data folder
+     */
+    @ApiStatus.Internal
+    public static void preloadConfig(Path dataFolder) {
+        CONFIG.loadAsync(dataFolder);
+    }
+
+    /**
+     * Gets the holder of the custom items configuration.
+     *
+     * @return the config holder
+     */
+    @ApiStatus.Internal
+    public static ConfigHolder<CustomItemConfig> getConfigHolder() {
+        return CONFIG;
+    }
+
+    /**
+     * Gets the custom item classes of the plugin sorted into dependency waves.
+     * <br>
+     * Uses the index generated at compile time, or the class names in the {@code META-INF} file if
+     * the plugin was compiled without it.
+     *
+     * @param classLoader the plugin class loader
+     * @return the waves
+     */
+    private static List<List<DefinitionLoader.Node<AbstractCustomItem>>> getWaves(final ClassLoader classLoader) {
+        DefinitionIndex<AbstractCustomItem> index = DefinitionIndex.find(classLoader, CustomItemContainerProcessor.INDEX_PATH);
+        if (index != null) {
+            return index.waves();
+        }
 
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from a file
-        CONFIG = CONFIG_NODE.get(CustomItemConfig.class); // Populate object
+        List<DefinitionLoader.Node<AbstractCustomItem>> nodes = new ArrayList<>();
+        for (Class<? extends AbstractCustomItem> itemClass : getClasses(classLoader)) {
+            CustomItemContainer annotation = itemClass.getAnnotation(CustomItemContainer.class);
+            nodes.add(DefinitionLoader.Node.reflective(itemClass, annotation.depends(), annotation.strongDependency()));
+        }
+        return DefinitionLoader.sortWaves("item", nodes);
     }
 
     /**
@@ -131,41 +272,94 @@ public class CustomItemsManager {
     }
 
     /**
-     * Scans, instantiates, and loads all custom items into the manager.
+     * Collects the base materials of all custom items in a registry.
+     * <br>
+     * Lazy items not built yet are only counted, their material is added when they are built. Disabled lazy
+     * items are never built, so they are left out until a reload enables them.
+     *
+     * @param registry the registry
+     * @return the material filter
      */
-    public static void loadAllCustomItems() {
-        Set<Class<? extends AbstractCustomItem>> reflectionCustomItems = getClasses(DLibCustomExtensionManager.getInstance().getClassLoader());
-
-        Set<Class<? extends AbstractCustomItem>> loadedClasses = new HashSet<>();
-        Set<Class<? extends AbstractCustomItem>> failedClasses = new HashSet<>();
-
-        while (!reflectionCustomItems.isEmpty()) {
-            Iterator<Class<? extends AbstractCustomItem>> iterator = reflectionCustomItems.iterator();
-
-            while (iterator.hasNext()) {
-                Class<? extends AbstractCustomItem> itemClass = iterator.next();
-                CustomItemContainer annotation = itemClass.getAnnotation(CustomItemContainer.class);
-                Class<? extends AbstractCustomItem>[] dependencies = annotation.depends();
-
-                boolean dependenciesLoaded = Arrays.stream(dependencies)
-                        .allMatch(dep -> loadedClasses.contains(dep) || (!annotation.strongDependency() && failedClasses.contains(dep)));
-
-                if (dependenciesLoaded) {
-                    try {
-                        AbstractCustomItem customItem = itemClass.getConstructor().newInstance();
-                        CUSTOM_ITEMS.add(customItem);  // Añadir directamente a CUSTOM_ITEMS
-                        loadedClasses.add(itemClass);
-                        iterator.remove();
-                    } catch (Exception e) {
-                        LoggerUtils.warn("Cannot load [%s] item custom".formatted(itemClass.getSimpleName()), e);
-                        failedClasses.add(itemClass);
-                        iterator.remove();
-                    }
-                }
+    private static MaterialFilter collectMaterials(CustomRegistry<AbstractCustomItem> registry) {
+        BitSet materials = new BitSet();
+        int unbuilt = 0;
+        for (AbstractCustomItem customItem : registry.values()) {
+            if (customItem.isMaterialized()) {
+                materials.set(customItem.getItem().getType().ordinal());
+            } else if (customItem.isEnabled()) {
+                unbuilt++;
             }
         }
+        return new MaterialFilter(materials, unbuilt);
+    }
+
+    /**
+     * Adds the material of a lazy item to the prefilter once it is built.
+     *
+     * @param customItem the built item
+     */
+    @ApiStatus.Internal
+    public static void onItemMaterialized(AbstractBaseCustomItem customItem) {
+        CustomRegistry<AbstractCustomItem> registry = CUSTOM_ITEMS;
+        if (registry.getByKey(customItem.getKey()) != customItem) {
+            return; // Still loading, the filter is collected after
+        }
+        // Collected again, the count depends on the enabled items when the filter was collected
+        setCustomMaterials(registry);
+    }
+
+    /**
+     * Creates an empty registry for custom items.
+     *
+     * @return the registry
+     */
+    private static CustomRegistry<AbstractCustomItem> createRegistry() {
+        return new CustomRegistry<>(AbstractCustomItem::getKey, AbstractCustomItem::getRecipeKey);
+    }
+
+    /**
+     * Scans, instantiates, and loads all custom items into the manager.
+     */
+    public static void loadAllCustomItems() {
+        ClassLoader classLoader = DLibCustomExtensionManager.getInstance().getClassLoader();
+        List<List<DefinitionLoader.Node<AbstractCustomItem>>> waves = getWaves(classLoader);
+
+        // Items can look up their dependencies while loading, so the registry is published before freezing it
+        CustomRegistry<AbstractCustomItem> registry = createRegistry();
+        CUSTOM_ITEMS = registry;
+
+        DefinitionLoader.loadWaves("item", waves, classLoader, customItem -> {
+            registry.register(customItem);
+            customItem.registerListener();
+        });
+
+        registry.freeze();
+        setCustomMaterials(registry);
+        RECIPE_DISCOVERY = null;
+        LoggerUtils.info("Loaded " + registry.size() + " custom items.");
+    }
+
+    /**
+     * Collects the material prefilter again from a registry and publishes it.
+     *
+     * @param registry the registry
+     */
+    private static synchronized void setCustomMaterials(CustomRegistry<AbstractCustomItem> registry) {
+        CUSTOM_MATERIALS = collectMaterials(registry);
+    }
 
-        LoggerUtils.info("Loaded " + CustomItemsManager.CUSTOM_ITEMS.size() + " custom items.");
+    /**
+     * Checks if a material is the base material of any custom item.
+     * <br>
+     * A cheap prefilter before reading the persistent data of an item. While some enabled lazy item is not built
+     * the filter is incomplete, so every material passes.
+     *
+     * @param material the material
+     * @return {@code true} if some custom item can use this material
+     */
+    public static boolean isCustomMaterial(Material material) {
+        MaterialFilter materialFilter = CUSTOM_MATERIALS;
+        return materialFilter.unbuilt() > 0 || materialFilter.materials().get(material.ordinal());
     }
 
     /**
@@ -175,10 +369,7 @@ public class CustomItemsManager {
      * @return an Optional
      */
     public static Optional<AbstractCustomItem> getCustomItem(@Nullable String internalName) {
-        if (internalName == null || internalName.isEmpty()) {
-            return Optional.empty();
-        }
-        return CUSTOM_ITEMS.stream().filter(baseItem -> baseItem.getKey().value().equalsIgnoreCase(internalName) || baseItem.getKey().asString().equalsIgnoreCase(internalName)).findFirst();
+        return Optional.ofNullable(CUSTOM_ITEMS.getByName(internalName));
     }
 
     /**
@@ -189,7 +380,7 @@ public class CustomItemsManager {
      * @param <T> class type
      */
     public static <T extends AbstractCustomItem> Optional<T> getCustomItem(Class<T> baseItemClass) {
-        return CUSTOM_ITEMS.stream().filter(baseItem -> baseItem.getClass().equals(baseItemClass)).map(baseItemClass::cast).findFirst();
+        return Optional.ofNullable(CUSTOM_ITEMS.getByClass(baseItemClass));
     }
 
     /**
@@ -199,17 +390,32 @@ public class CustomItemsManager {
      * @return an optional with the class
      */
     public static Optional<AbstractCustomItem> getCustomItem(@Nullable ItemStack itemStack) {
-        if (itemStack == null || itemStack.isEmpty()) {
-            return Optional.empty();
-        }
-
-        Key key = getInternalKey(itemStack);
+        return Optional.ofNullable(CustomItemsManager.resolve(itemStack));
+    }
 
-        if (key == null) {
-            return Optional.empty();
-        }
+    /**
+     * Resolves the custom item definition of an item.
+     * <p>
+     * This is the single entry point used by the library for identify custom items, it reads the
+     * persistent data container once. The handlers that check the same items several times, like the
+     * crafting matrix, keep the result for the event.
+     * </p>
+     *
+     * @param itemStack the itemstack
+     * @return the custom item or {@code null} if the item is not a registered custom item
+     */
+    public static @Nullable AbstractCustomItem resolve(@Nullable ItemStack itemStack) {
+        return CUSTOM_ITEMS.getByKey(CustomItemsManager.getInternalKey(itemStack));
+    }
 
-        return CustomItemsManager.getCustomItem(key.asString());
+    /**
+     * Resolves the custom item definition of a key already read from an item.
+     *
+     * @param key the internal key
+     * @return the custom item or {@code null} if the key is not a registered custom item
+     */
+    static @Nullable AbstractCustomItem resolveKey(@Nullable Key key) {
+        return CUSTOM_ITEMS.getByKey(key);
     }
 
     /**
@@ -219,10 +425,7 @@ public class CustomItemsManager {
      * @return {@code true} if item with this name is enabled
      */
     public static boolean isItemEnable(String internalName) {
-        if (CONFIG != null && !CONFIG.isEnabled()) {
-            return true;
-        }
-        return CONFIG != null && CONFIG.getNameItems().stream().anyMatch(internalName::equalsIgnoreCase);
+        return CONFIG.getEnabled().isEnabled(internalName);
     }
 
     /**
@@ -242,13 +445,10 @@ public class CustomItemsManager {
      * @return the internal name or empty
      */
     public static @Nullable Key getInternalKey(@Nullable ItemStack item) {
-        if (item == null) {
-            return null;
-        }
-        if (!item.getPersistentDataContainer().has(Objects.requireNonNull(NAMESPACED_CUSTOM_ITEM))) {
+        if (item == null || item.isEmpty()) {
             return null;
         }
-        return item.getPersistentDataContainer().get(NAMESPACED_CUSTOM_ITEM, PersistentDataKey.KEY_CONTAINER);
+        return item.getPersistentDataContainer().get(Objects.requireNonNull(NAMESPACED_CUSTOM_ITEM), PersistentDataKey.KEY_CONTAINER);
     }
 
     /**
@@ -257,7 +457,7 @@ public class CustomItemsManager {
      * @return a set of keys
      */
     public static HashSet<NamespacedKey> getNamespacedKeys() {
-        return CUSTOM_ITEMS.stream().map(AbstractCustomItem::getKey).map(key -> new NamespacedKey(key.namespace(), key.value())).collect(Collectors.toCollection(HashSet::new));
+        return CUSTOM_ITEMS.values().stream().map(AbstractCustomItem::getKey).map(key -> new NamespacedKey(key.namespace(), key.value())).collect(Collectors.toCollection(HashSet::new));
     }
 
     /**
@@ -267,7 +467,7 @@ public class CustomItemsManager {
      * @return an Optional
      */
     public static Optional<ItemStack> getItem(String internalName) {
-        return CUSTOM_ITEMS.stream().filter(baseItem -> baseItem.getKey().value().equalsIgnoreCase(internalName)).map(AbstractCustomItem::getItemForPlayer).map(ItemStack::clone).findAny();
+        return Optional.ofNullable(CUSTOM_ITEMS.getByValue(internalName)).map(AbstractCustomItem::getItemForPlayer);
     }
 
     /**
@@ -277,7 +477,39 @@ public class CustomItemsManager {
      * @return an Optional
      */
     public static <T extends AbstractCustomItem> Optional<ItemStack> getItem(Class<T> baseItemClass) {
-        return CustomItemsManager.getCustomItem(baseItemClass).map(AbstractCustomItem::getItemForPlayer).map(ItemStack::clone);
+        return CustomItemsManager.getCustomItem(baseItemClass).map(AbstractCustomItem::getItemForPlayer);
+    }
+
+    /**
+     * Creates the stacks for an amount of a custom item, split by the max stack size.
+     *
+     * @param internalName custom item name
+     * @param totalAmount  the total amount of items
+     * @return the stacks, empty if the item does not exist
+     */
+    public static List<ItemStack> createStacks(String internalName, int totalAmount) {
+        AbstractCustomItem customItem = CUSTOM_ITEMS.getByValue(internalName);
+        return customItem == null ? List.of() : customItem.createStacks(totalAmount);
+    }
+
+    /**
+     * Gives an amount of a custom item to some players.
+     * <br>
+     * Each player gets their own stacks, the items that do not fit in the inventory are dropped at
+     * the player location.
+     *
+     * @param players      the players
+     * @param internalName custom item name
+     * @param amount       the amount of items for each player
+     * @return {@code true} if the item exists
+     */
+    public static boolean giveTo(Collection<? extends Player> players, String internalName, int amount) {
+        AbstractCustomItem customItem = CUSTOM_ITEMS.getByValue(internalName);
+        if (customItem == null) {
+            return false;
+        }
+        ItemStackUtils.giveTo(players, customItem.getItemForPlayer(), amount);
+        return true;
     }
 
     /**
@@ -287,24 +519,109 @@ public class CustomItemsManager {
      * @return {@code true} if a recipe is from a custom item
      */
     public static boolean isRegisterRecipe(Recipe recipe) {
-        return CUSTOM_ITEMS.stream().filter(abstractCustomItem -> abstractCustomItem.getRecipe() != null).anyMatch(baseRecipe -> baseRecipe.getRecipe().equals(recipe));
+        if (!(recipe instanceof Keyed keyed)) {
+            return false;
+        }
+        AbstractCustomItem customItem = CUSTOM_ITEMS.getByRecipeKey(keyed.getKey());
+        // A lazy item not built yet has no recipe registered
+        return customItem != null && customItem.isMaterialized() && customItem.getRecipe() != null;
     }
 
     /**
      * Handle the recipe for a player.
+     * <br>
+     * Enabled recipes with auto discover are discovered and disabled recipes undiscovered, each group in a single
+     * call. The fingerprint of both groups is stored in the player, so the pass is skipped while it does not change.
      *
      * @param player player to handle
      */
     public static void handleAvailableRecipes(Player player) {
-        for (AbstractCustomItem customItem : CUSTOM_ITEMS) {
+        RecipeDiscovery recipeDiscovery = getRecipeDiscovery();
+        PersistentDataContainer persistentDataContainer = player.getPersistentDataContainer();
+        Long playerFingerprint = persistentDataContainer.get(getRecipesFingerprintKey(), PersistentDataType.LONG);
+        if (playerFingerprint != null && playerFingerprint == recipeDiscovery.fingerprint()) {
+            return;
+        }
+
+        if (!recipeDiscovery.discover().isEmpty()) {
+            player.discoverRecipes(recipeDiscovery.discover());
+        }
+        if (!recipeDiscovery.undiscover().isEmpty()) {
+            player.undiscoverRecipes(recipeDiscovery.undiscover());
+        }
+        persistentDataContainer.set(getRecipesFingerprintKey(), PersistentDataType.LONG, recipeDiscovery.fingerprint());
+    }
+
+    private static NamespacedKey getRecipesFingerprintKey() {
+        return Objects.requireNonNull(NAMESPACED_RECIPES_FINGERPRINT);
+    }
+
+    /**
+     * Gets the recipes to discover and undiscover, computing them if the items or the config changed.
+     *
+     * @return the recipe discovery
+     */
+    private static RecipeDiscovery getRecipeDiscovery() {
+        RecipeDiscovery recipeDiscovery = RECIPE_DISCOVERY;
+        if (recipeDiscovery == null) {
+            recipeDiscovery = computeRecipeDiscovery();
+            RECIPE_DISCOVERY = recipeDiscovery;
+        }
+        return recipeDiscovery;
+    }
+
+    private static RecipeDiscovery computeRecipeDiscovery() {
+        List<NamespacedKey> discover = new ArrayList<>();
+        List<NamespacedKey> undiscover = new ArrayList<>();
+        long fingerprint = 0;
+        for (AbstractCustomItem customItem : CUSTOM_ITEMS.values()) {
+            if (customItem.getRecipeKey() == null) {
+                continue;
+            }
             if (customItem.isEnabled()) {
                 if (customItem.isAutoDiscoverRecipe()) {
-                    customItem.discoverRecipe(player);
+                    discover.add(customItem.getNamespacedKey());
+                    fingerprint += fingerprint(customItem.getKey().asString(), 1);
                 }
             } else {
-                customItem.undiscoverRecipe(player);
+                undiscover.add(customItem.getNamespacedKey());
+                fingerprint += fingerprint(customItem.getKey().asString(), 2);
             }
         }
+        return new RecipeDiscovery(List.copyOf(discover), List.copyOf(undiscover), fingerprint);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a recipe key and its state.
+     * <br>
+     * The hashes are summed, so the fingerprint does not depend on the load order of the items.
+     */
+    private static long fingerprint(String key, int state) {
+        long hash = 0xcbf29ce484222325L ^ state;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The recipes handled on join.
+     *
+     * @param discover    the recipes to discover
+     * @param undiscover  the recipes to undiscover
+     * @param fingerprint the fingerprint of both lists
+     */
+    private record RecipeDiscovery(List<NamespacedKey> discover, List<NamespacedKey> undiscover, long fingerprint) {
+    }
+
+    /**
+     * The material prefilter.
+     *
+     * @param materials the ordinals of the base materials of the built items
+     * @param unbuilt   the amount of enabled lazy items not built yet
+     */
+    private record MaterialFilter(BitSet materials, int unbuilt) {
     }
 
     /**
@@ -313,7 +630,7 @@ public class CustomItemsManager {
      * @return list of recipes
      */
     public static List<Recipe> getRecipes() {
-        return CUSTOM_ITEMS.stream().map(AbstractCustomItem::getRecipe).filter(Objects::nonNull).collect(Collectors.toList());
+        return CUSTOM_ITEMS.values().stream().map(AbstractCustomItem::getRecipe).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     /**
@@ -326,14 +643,29 @@ public class CustomItemsManager {
 
     /**
      * Registers all custom item recipes.
+     * <br>
+     * The lazy items not built yet are queued and built one each tick after this call, so they do not
+     * delay the enable. Disabled lazy items are queued when a reload enables them.
      */
     public static void registerAllRecipes() {
-        for (AbstractCustomItem customItem : CUSTOM_ITEMS) {
-            try {
-                customItem.registerRecipe();
-            } catch (IllegalStateException ex) {
-                LoggerUtils.warn("Cannot register the recipe for [%s]".formatted(customItem.getKey().asString()), ex);
+        for (AbstractCustomItem customItem : CUSTOM_ITEMS.values()) {
+            if (customItem.isLazy() && !customItem.isMaterialized()) {
+                if (customItem.isEnabled()) {
+                    PENDING_RECIPES.add(customItem);
+                }
+                continue;
             }
+            registerRecipe(customItem);
+        }
+        schedulePendingRecipes();
+    }
+
+    private static void registerRecipe(AbstractCustomItem customItem) {
+        try {
+            customItem.registerRecipe();
+            CustomItemRecipeHelper.compileRecipe(customItem);
+        } catch (IllegalStateException ex) {
+            LoggerUtils.warn("Cannot register the recipe for [%s]".formatted(customItem.getKey().asString()), ex);
         }
     }
 
@@ -341,9 +673,20 @@ public class CustomItemsManager {
      * Unregisters all custom item recipes.
      */
     public static void unregisterAllRecipes() {
-        for (AbstractCustomItem customItem : CUSTOM_ITEMS) {
+        cancelPendingRecipes();
+        for (AbstractCustomItem customItem : CUSTOM_ITEMS.values()) {
             customItem.unRegisterRecipe();
         }
+        CustomItemRecipeHelper.clearCompiledRecipes();
+    }
+
+    /**
+     * Compiles the recipes of all custom items.
+     */
+    static void compileAllRecipes() {
+        for (AbstractCustomItem customItem : CUSTOM_ITEMS.values()) {
+            CustomItemRecipeHelper.compileRecipe(customItem);
+        }
     }
 
 }
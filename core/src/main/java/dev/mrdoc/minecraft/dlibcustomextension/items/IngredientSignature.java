@@ -0,0 +1,50 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.CustomModelData;
+import net.kyori.adventure.key.Key;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The properties compared when an item is matched against an exact recipe ingredient.
+ * <br>
+ * Two items with the same signature are the same ingredient, so exact choices are matched with a
+ * single hash lookup.
+ *
+ * @param type            the item type
+ * @param customKey       the custom item key, {@code null} for vanilla items
+ * @param itemModel       the item model
+ * @param customModelData the custom model data
+ */
+record IngredientSignature(Material type, @Nullable Key customKey, @Nullable Key itemModel, @Nullable CustomModelData customModelData) {
+
+    /**
+     * Computes the signature of an item.
+     *
+     * @param itemStack the item
+     * @return the signature
+     */
+    static IngredientSignature of(ItemStack itemStack) {
+        return IngredientSignature.of(itemStack, CustomItemsManager.getInternalKey(itemStack));
+    }
+
+    /**
+     * Computes the signature of an item whose custom item key is already known.
+     *
+     * @param itemStack the item
+     * @param customKey the custom item key of the item
+     * @return the signature
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    static IngredientSignature of(ItemStack itemStack, @Nullable Key customKey) {
+        return new IngredientSignature(
+                itemStack.getType(),
+                customKey,
+                itemStack.getData(DataComponentTypes.ITEM_MODEL),
+                itemStack.getData(DataComponentTypes.CUSTOM_MODEL_DATA)
+        );
+    }
+
+}
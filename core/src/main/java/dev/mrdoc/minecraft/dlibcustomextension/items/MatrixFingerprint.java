@@ -0,0 +1,40 @@
+package dev.mrdoc.minecraft.dlibcustomextension.items;
+
+import java.util.Arrays;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A fingerprint of a crafting matrix: the amount and {@link IngredientSignature} of each slot.
+ * <br>
+ * Two matrices with the same fingerprint give the same result for recipes matched only by type and
+ * {@link IngredientSignature}, the only recipes whose result is memoized.
+ */
+final class MatrixFingerprint {
+
+    private final int[] amounts;
+    private final @Nullable IngredientSignature[] signatures;
+    private final int hash;
+
+    MatrixFingerprint(int[] amounts, @Nullable IngredientSignature[] signatures) {
+        this.amounts = amounts;
+        this.signatures = signatures;
+        this.hash = 31 * Arrays.hashCode(amounts) + Arrays.hashCode(signatures);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MatrixFingerprint other)) {
+            return false;
+        }
+        return this.hash == other.hash && Arrays.equals(this.amounts, other.amounts) && Arrays.equals(this.signatures, other.signatures);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+}
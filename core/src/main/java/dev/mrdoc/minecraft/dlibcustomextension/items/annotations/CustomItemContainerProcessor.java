@@ -3,6 +3,7 @@ package dev.mrdoc.minecraft.dlibcustomextension.items.annotations;
 import com.google.auto.service.AutoService;
 import dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractBaseCustomItem;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionIndexGenerator;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -39,10 +40,22 @@ public class CustomItemContainerProcessor extends AbstractProcessor {
      * The file in which all items container names are stored.
      */
     public static final String PATH = "META-INF/items/" + CustomItemContainer.ANNOTATION_PATH;
+    /**
+     * The file with the name of the index generated with all the items container classes, sorted by dependencies.
+     */
+    public static final String INDEX_PATH = "META-INF/items/" + CustomItemContainer.ANNOTATION_PATH + ".index";
+
+    private static final String INDEX_NAME = "CustomItemsIndex";
+
+    private static final String DEFINITION_TYPE = "dev.mrdoc.minecraft.dlibcustomextension.items.classes.AbstractCustomItem";
 
     private @Nullable Messager messager;
     private @Nullable Elements elements;
     private @Nullable Types types;
+    private @Nullable DefinitionIndexGenerator indexGenerator;
+    // Collected over all the rounds, the files are written once in the last round
+    private final List<String> listElements = new ArrayList<>();
+    private boolean found = false;
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
@@ -50,15 +63,25 @@ public class CustomItemContainerProcessor extends AbstractProcessor {
         this.messager = processingEnv.getMessager();
         this.elements = processingEnv.getElementUtils();
         this.types = processingEnv.getTypeUtils();
+        this.indexGenerator = new DefinitionIndexGenerator(processingEnv, CustomItemContainer.class, INDEX_NAME, INDEX_PATH, DEFINITION_TYPE, CustomItemContainerProcessor.class);
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        List<String> listElements = new ArrayList<>();
+        DefinitionIndexGenerator indexGenerator = Objects.requireNonNull(this.indexGenerator);
+        if (roundEnv.processingOver()) {
+            // A file can only be created once, so it waits for the classes of all the rounds
+            if (this.found) {
+                this.writeCommandFile(this.listElements);
+                indexGenerator.write();
+            }
+            return false;
+        }
         final Set<? extends Element> elementsAnnotated = roundEnv.getElementsAnnotatedWith(CustomItemContainer.class);
         if (elementsAnnotated.isEmpty()) {
             return false; // Nothing to process...
         }
+        this.found = true;
         for (Element element : elementsAnnotated) {
             if (!(element instanceof TypeElement typeElement)) {
                 continue;
@@ -68,6 +91,10 @@ public class CustomItemContainerProcessor extends AbstractProcessor {
             TypeElement baseItemType = Objects.requireNonNull(this.elements).getTypeElement(AbstractBaseCustomItem.class.getCanonicalName());
             if (!Objects.requireNonNull(this.types).isSubtype(typeElement.asType(), baseItemType.asType())) {
                 Objects.requireNonNull(this.messager).printMessage(Diagnostic.Kind.ERROR, String.format("@CustomItemContainer-annotated class %s need extends from BaseItem", element));
+                indexGenerator.fail();
+                continue;
+            }
+            if (!indexGenerator.add(typeElement)) {
                 continue;
             }
 
@@ -78,10 +105,8 @@ public class CustomItemContainerProcessor extends AbstractProcessor {
                             element
                     )
             );
-            listElements.add(element.asType().toString());
+            this.listElements.add(element.asType().toString());
         }
-
-        this.writeCommandFile(listElements);
         return false;
     }
 
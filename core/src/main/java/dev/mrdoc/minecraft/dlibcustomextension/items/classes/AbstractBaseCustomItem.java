@@ -1,7 +1,10 @@
 package dev.mrdoc.minecraft.dlibcustomextension.items.classes;
 
+import com.google.common.base.Preconditions;
 import dev.mrdoc.minecraft.dlibcustomextension.items.CustomItemsManager;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.RecipeDisplayAnimator;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.item.ItemStackUtils;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.item.RecipeChoiceUtils;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.persistence.PersistentDataKey;
 import io.papermc.paper.datacomponent.DataComponentTypes;
@@ -20,6 +23,7 @@ import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.object.ObjectContents;
 import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
@@ -32,7 +36,6 @@ import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.ShapelessRecipe;
 import org.bukkit.inventory.SmithingTransformRecipe;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
 
@@ -60,26 +63,11 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      */
     @Getter
     private final Key key;
-    /**
-     * Gets the recipe associated with this custom item, if any.
-     */
-    @Getter
-    private final @Nullable Recipe recipe;
-    /**
-     * The base item for recipes and validations.
-     */
-    @Getter
-    private final ItemStack item;
     /**
      * The key for the item model.
      */
     @Getter
     private final @Nullable Key itemModelKey;
-    /**
-     * The sprite component for the item model, if available.
-     */
-    @Getter
-    private final @Nullable ObjectComponent itemModelSprite;
     /**
      * Gets whether this item is considered special (e.g., has special visual effects or tags).
      */
@@ -100,6 +88,31 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      */
     @Getter
     private final HashSet<InventoryType> inventoryTypes = new HashSet<>();
+    /**
+     * Gets whether the item and recipe are built on first access instead of in the constructor.
+     */
+    @Getter
+    private final boolean lazy;
+
+    private final Component displayName;
+    private final List<Component> descriptions;
+    private final Object templateLock = new Object();
+    private volatile @Nullable Template template;
+    /**
+     * The item while the recipe is created, guarded by {@code templateLock}.
+     */
+    private @Nullable ItemStack buildingItem;
+
+    /**
+     * The built item, recipe and sprite of a custom item.
+     *
+     * @param item            the base item
+     * @param prototype       a private copy of the item, never exposed, for the copies given to players
+     * @param recipe          the recipe, if any
+     * @param itemModelSprite the sprite component for the item model, if available
+     */
+    private record Template(ItemStack item, ItemStack prototype, @Nullable Recipe recipe, @Nullable ObjectComponent itemModelSprite) {
+    }
 
     /**
      * Creates a new base custom item.
@@ -116,6 +129,25 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      */
     @ApiStatus.Internal
     public AbstractBaseCustomItem(Plugin instance, String internalName, Component displayName, @Nullable CustomItemRarity rarity, boolean isSpecial, boolean autoDiscoverRecipe, @Nullable final Key modelNameKey, List<InventoryType> inventoryTypes, List<Component> descriptions) {
+        this(instance, internalName, displayName, rarity, isSpecial, autoDiscoverRecipe, modelNameKey, inventoryTypes, descriptions, false);
+    }
+
+    /**
+     * Creates a new base custom item.
+     *
+     * @param instance           the owning plugin instance
+     * @param internalName       the unique internal name
+     * @param displayName        the display name of the item (can be {@link Component#empty()})
+     * @param rarity             the rarity of the item
+     * @param isSpecial          whether the item is marked as special
+     * @param autoDiscoverRecipe whether to automatically discover the recipe
+     * @param modelNameKey       the key for the item model
+     * @param inventoryTypes     the permitted inventory types
+     * @param descriptions       descriptive lines for the lore
+     * @param lazy               whether the item and recipe are built on first access
+     */
+    @ApiStatus.Internal
+    public AbstractBaseCustomItem(Plugin instance, String internalName, Component displayName, @Nullable CustomItemRarity rarity, boolean isSpecial, boolean autoDiscoverRecipe, @Nullable final Key modelNameKey, List<InventoryType> inventoryTypes, List<Component> descriptions, boolean lazy) {
         this.inventoryTypes.addAll(inventoryTypes);
         this.instance = instance;
         this.internalName = internalName;
@@ -124,46 +156,166 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
 
         this.key = new NamespacedKey(this.instance, this.internalName);
 
-        this.item = Objects.requireNonNull(this.createItem(), "The ItemStack for %s is null".formatted(internalName));
+        this.displayName = displayName;
+        this.descriptions = List.copyOf(descriptions);
+        this.itemModelKey = modelNameKey;
+        this.special = isSpecial;
+        this.rarity = rarity;
+        this.lazy = lazy;
 
-        this.item.editPersistentDataContainer(persistentDataContainer -> persistentDataContainer.set(CustomItemsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER, this.key));
+        if (!this.lazy) {
+            this.template = this.buildTemplate();
+        }
+    }
 
-        if (!Component.empty().equals(displayName)) {
-            this.item.setData(DataComponentTypes.ITEM_NAME, displayName.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE));
+    /**
+     * Gets the template, building it if this is a lazy item not built yet.
+     *
+     * @return the template
+     */
+    private Template template() {
+        Template template = this.template;
+        if (template == null) {
+            synchronized (this.templateLock) {
+                template = this.template;
+                if (template == null) {
+                    Preconditions.checkState(this.buildingItem == null, "The recipe of %s is used while creating it", this.internalName);
+                    template = this.buildTemplate();
+                    this.template = template;
+                    CustomItemsManager.onItemMaterialized(this);
+                }
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Builds the item, with the name, model, lore and key of this custom item, and the recipe.
+     *
+     * @return the template
+     */
+    private Template buildTemplate() {
+        ItemStack item = Objects.requireNonNull(this.createItem(), "The ItemStack for %s is null".formatted(this.internalName));
+
+        item.editPersistentDataContainer(persistentDataContainer -> persistentDataContainer.set(CustomItemsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER, this.key));
+
+        if (!Component.empty().equals(this.displayName)) {
+            item.setData(DataComponentTypes.ITEM_NAME, this.displayName.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE));
         }
 
-        this.itemModelKey = modelNameKey;
         Key spriteKey = null;
         if (this.itemModelKey != null) {
-            this.item.setData(DataComponentTypes.ITEM_MODEL, modelNameKey);
+            item.setData(DataComponentTypes.ITEM_MODEL, this.itemModelKey);
             spriteKey = Key.key(this.itemModelKey.namespace(), "item/".concat(this.itemModelKey.value()));
         }
-        this.itemModelSprite = (spriteKey != null) ? Component.object(ObjectContents.sprite(Key.key("items"), spriteKey)) : null;
+        ObjectComponent itemModelSprite = (spriteKey != null) ? Component.object(ObjectContents.sprite(Key.key("items"), spriteKey)) : null;
 
         ArrayList<Component> loreComponents = new ArrayList<>();
 
-        this.special = isSpecial;
         if (this.special) {
             loreComponents.add(Component.text("✦ ✦ ✦ ✦ ✦", TextColor.fromHexString("#ac3fff")).decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE));
         }
 
-        this.rarity = rarity;
         if (this.rarity != null) {
             loreComponents.add(this.rarity.generateTag());
             if (this.rarity.vanillaRarity() != null) {
-                this.item.setData(DataComponentTypes.RARITY, this.rarity.vanillaRarity());
+                item.setData(DataComponentTypes.RARITY, this.rarity.vanillaRarity());
             }
         }
 
-        if (!descriptions.isEmpty()) {
+        if (!this.descriptions.isEmpty()) {
             loreComponents.add(Component.empty());
-            List<Component> descriptionProcessed = descriptions.stream().map(component -> component.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE)).toList();
+            List<Component> descriptionProcessed = this.descriptions.stream().map(component -> component.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE)).toList();
             loreComponents.addAll(descriptionProcessed);
         }
 
-        this.item.setData(DataComponentTypes.LORE, ItemLore.lore().addLines(loreComponents).build());
+        item.setData(DataComponentTypes.LORE, ItemLore.lore().addLines(loreComponents).build());
+
+        // The recipe can use getItem() while is created
+        this.buildingItem = item;
+        try {
+            return new Template(item, item.clone(), this.createRecipe(), itemModelSprite);
+        } finally {
+            this.buildingItem = null;
+        }
+    }
+
+    /**
+     * The base item for recipes and validations.
+     * <br>
+     * Lazy items are built on the first call.
+     *
+     * @return the item
+     */
+    public ItemStack getItem() {
+        Template template = this.template;
+        if (template != null) {
+            return template.item();
+        }
+        synchronized (this.templateLock) {
+            if (this.buildingItem != null) {
+                return this.buildingItem;
+            }
+            return this.template().item();
+        }
+    }
+
+    /**
+     * Gets the recipe associated with this custom item, if any.
+     * <br>
+     * Lazy items are built on the first call. Returns {@code null} while the recipe is created.
+     *
+     * @return the recipe or {@code null}
+     */
+    public @Nullable Recipe getRecipe() {
+        Template template = this.template;
+        if (template != null) {
+            return template.recipe();
+        }
+        synchronized (this.templateLock) {
+            if (this.buildingItem != null) {
+                return null; // Called from createRecipe()
+            }
+            return this.template().recipe();
+        }
+    }
+
+    /**
+     * The sprite component for the item model, if available.
+     * <br>
+     * Lazy items are built on the first call.
+     *
+     * @return the sprite or {@code null}
+     */
+    public @Nullable ObjectComponent getItemModelSprite() {
+        return this.template().itemModelSprite();
+    }
+
+    /**
+     * Checks if the item and recipe are already built.
+     * <br>
+     * Always {@code true} for items that are not lazy.
+     *
+     * @return {@code true} if built
+     */
+    public boolean isMaterialized() {
+        return this.template != null;
+    }
 
-        this.recipe = this.createRecipe();
+    /**
+     * Gets the key of the recipe without building a lazy item.
+     * <br>
+     * Lazy items not built yet use the key of the item, like the recipe of a custom item is expected to do.
+     *
+     * @return the recipe key, or {@code null} if the item has no recipe
+     */
+    @ApiStatus.Internal
+    public @Nullable NamespacedKey getRecipeKey() {
+        Template template = this.template;
+        if (template == null) {
+            return this.getNamespacedKey();
+        }
+        return template.recipe() instanceof Keyed keyed ? keyed.getKey() : null;
     }
 
     /**
@@ -193,6 +345,8 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
 
     /**
      * The definition of recipe
+     * <br>
+     * Can use {@link #getItem()} and {@link #getItemForPlayer()}, {@link #getRecipe()} returns {@code null} here.
      *
      * @return recipe to register
      */
@@ -271,39 +425,24 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
             }
         }
 
-        if (!animatedSlots.isEmpty()) {
-            new BukkitRunnable() {
-                int tick = 0;
-
-                @Override
-                public void run() {
-                    if (inventoryView.getTopInventory().getViewers().isEmpty()) {
-                        LoggerUtils.debug("Player " + player.getName() + " closed the crafting view, remove animation for choices recipes");
-                        this.cancel();
-                        return;
-                    }
-
-                    for (Map<Integer, List<ItemStack>> slots : animatedSlots) {
-                        slots.forEach((slot, variants) -> {
-                            ItemStack item = variants.get((tick / 20) % variants.size());
-                            inventoryView.getTopInventory().setItem(slot, item);
-                        });
-                    }
-                    tick += 20;
-                }
-            }.runTaskTimer(this.instance, 0L, 20L);
+        RecipeDisplayAnimator.Session session = RecipeDisplayAnimator.session(player, inventoryView);
+        for (Map<Integer, List<ItemStack>> slots : animatedSlots) {
+            slots.forEach(session::animate);
         }
+        session.start();
 
         return inventoryView;
     }
 
     /**
      * Generate a copy of the item to give to the player.
+     * <br>
+     * The copy is made from a private prototype, so changes to {@link #getItem()} do not leak.
      *
      * @return item to give
      */
     public ItemStack getItemForPlayer() {
-        return this.getItem().clone();
+        return this.prototype().clone();
     }
 
     /**
@@ -313,9 +452,37 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      * @return item to give
      */
     public ItemStack getItemForPlayer(int quantity) {
-        ItemStack itemStack = this.getItemForPlayer();
-        itemStack.setAmount(quantity);
-        return itemStack;
+        return this.prototype().asQuantity(quantity);
+    }
+
+    /**
+     * Generate the stacks for an amount of the item, split by the max stack size.
+     *
+     * @param totalAmount the total amount of items
+     * @return the stacks, one copy of the item each
+     */
+    public List<ItemStack> createStacks(int totalAmount) {
+        return ItemStackUtils.createStacks(this.prototype(), totalAmount);
+    }
+
+    /**
+     * Gets the private prototype for the copies given to players.
+     * <br>
+     * While the recipe is created the item being built is used, so the recipe can use {@link #getItemForPlayer()}.
+     *
+     * @return the prototype, must not be modified
+     */
+    private ItemStack prototype() {
+        Template template = this.template;
+        if (template != null) {
+            return template.prototype();
+        }
+        synchronized (this.templateLock) {
+            if (this.buildingItem != null) {
+                return this.buildingItem;
+            }
+            return this.template().prototype();
+        }
     }
 
     /**
@@ -324,7 +491,7 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      * @param player the player who discovers the recipe
      */
     public void discoverRecipe(Player player) {
-        if (this.recipe != null && !player.hasDiscoveredRecipe(this.getNamespacedKey())) {
+        if (this.getRecipe() != null && !player.hasDiscoveredRecipe(this.getNamespacedKey())) {
             player.discoverRecipe(this.getNamespacedKey());
         }
     }
@@ -335,7 +502,7 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      * @param player the player who undiscovers the recipe
      */
     public void undiscoverRecipe(Player player) {
-        if (this.recipe != null && player.hasDiscoveredRecipe(this.getNamespacedKey())) {
+        if (this.getRecipeKey() != null && player.hasDiscoveredRecipe(this.getNamespacedKey())) {
             player.undiscoverRecipe(this.getNamespacedKey());
         }
     }
@@ -344,9 +511,11 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      * Registers the recipe into the server.
      */
     public void registerRecipe() {
-        if (this.recipe != null) {
+        Recipe recipe = this.getRecipe();
+        if (recipe != null) {
             LoggerUtils.info("Adding recipe " + this.getKey());
-            Bukkit.getServer().addRecipe(this.getRecipe());
+            Bukkit.getServer().addRecipe(recipe);
+            RecipeChoiceUtils.precompute(recipe);
         }
     }
 
@@ -354,9 +523,12 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
      * Unregisters the recipe from the server.
      */
     public void unRegisterRecipe() {
-        if (this.recipe != null) {
+        // A lazy item not built yet has no recipe registered
+        Recipe recipe = this.isMaterialized() ? this.getRecipe() : null;
+        if (recipe != null) {
             LoggerUtils.info("Removing recipe " + this.getKey());
             Bukkit.removeRecipe(this.getNamespacedKey());
+            RecipeChoiceUtils.evict(recipe);
         }
     }
 
@@ -370,9 +542,6 @@ public abstract sealed class AbstractBaseCustomItem permits AbstractCustomItem {
         if (itemToCheck == null || itemToCheck.isEmpty() || itemToCheck.getAmount() <= 0) {
             return false;
         }
-        if (!itemToCheck.getPersistentDataContainer().has(CustomItemsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER)) {
-            return false;
-        }
-        return Objects.equals(itemToCheck.getPersistentDataContainer().get(CustomItemsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER), this.getKey());
+        return Objects.equals(CustomItemsManager.getInternalKey(itemToCheck), this.getKey());
     }
 }
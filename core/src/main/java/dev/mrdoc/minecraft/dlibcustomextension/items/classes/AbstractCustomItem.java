@@ -4,20 +4,23 @@ import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
 import io.papermc.paper.datacomponent.DataComponentTypes;
 import io.papermc.paper.datacomponent.item.ItemLore;
 import org.bukkit.Bukkit;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
-import org.bukkit.event.block.Action;
 import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Abstract class representing a custom item with listener capabilities.
+ * <p>
+ * The item events ({@code on*} methods) are routed by the library dispatcher, so only the
+ * custom item owning the event item is called. Subclasses can still declare their own
+ * {@link org.bukkit.event.EventHandler} methods.
+ * </p>
  */
 public abstract non-sealed class AbstractCustomItem extends AbstractBaseCustomItem implements Listener {
 
@@ -27,8 +30,18 @@ public abstract non-sealed class AbstractCustomItem extends AbstractBaseCustomIt
      * @param customItemBuilder the builder containing item configuration
      */
     public AbstractCustomItem(CustomItemBuilder customItemBuilder) {
-        super(customItemBuilder.getPlugin(), customItemBuilder.getInternalName(), customItemBuilder.getDisplayName(), customItemBuilder.getRarity(), customItemBuilder.isSpecial(), customItemBuilder.isAutoDiscoverRecipe(), customItemBuilder.getItemModel(), customItemBuilder.getInventoryTypes(), customItemBuilder.getDescriptions());
-        Bukkit.getServer().getPluginManager().registerEvents(this, customItemBuilder.getPlugin());
+        super(customItemBuilder.getPlugin(), customItemBuilder.getInternalName(), customItemBuilder.getDisplayName(), customItemBuilder.getRarity(), customItemBuilder.isSpecial(), customItemBuilder.isAutoDiscoverRecipe(), customItemBuilder.getItemModel(), customItemBuilder.getInventoryTypes(), customItemBuilder.getDescriptions(), customItemBuilder.isLazy());
+    }
+
+    /**
+     * Registers this item as listener of its plugin.
+     * <br>
+     * Items are created off the main thread while loading, so this is called by the manager once the
+     * item is registered.
+     */
+    @ApiStatus.Internal
+    public void registerListener() {
+        Bukkit.getServer().getPluginManager().registerEvents(this, this.getInstance());
         LoggerUtils.info("Item registered " + this.getKey());
     }
 
@@ -92,61 +105,69 @@ public abstract non-sealed class AbstractCustomItem extends AbstractBaseCustomIt
      */
     protected abstract void onItemReplace(PlayerDropItemEvent event, ItemStack itemReplace);
 
-    @EventHandler
+    /**
+     * Routes a {@link PlayerInteractEntityEvent} whose main hand item is this custom item.
+     *
+     * @param event the event
+     */
+    @ApiStatus.Internal
     public void playerInteractEntity(PlayerInteractEntityEvent event) {
-        if (event.getHand().toString().contains("HAND")) {
-            if (this.isItem(event.getPlayer().getInventory().getItemInMainHand())) {
-                this.onPlayerInteractEntity(event);
-            }
-        }
+        this.onPlayerInteractEntity(event);
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
+    /**
+     * Routes a {@link PlayerInteractEvent} whose item is this custom item.
+     *
+     * @param event the event
+     */
+    @ApiStatus.Internal
     public void playerInteract(PlayerInteractEvent event) {
-        if (!event.getAction().equals(Action.PHYSICAL)) {
-            if (event.getItem() != null && this.isItem(event.getItem())) {
-                this.onPlayerInteract(event);
-            }
-        }
+        this.onPlayerInteract(event);
     }
 
-    @EventHandler
+    /**
+     * Routes an {@link EntityPickupItemEvent} whose item is this custom item.
+     *
+     * @param event the event
+     */
+    @ApiStatus.Internal
     public void entityPickupItem(EntityPickupItemEvent event) {
-        if (this.isItem(event.getItem().getItemStack())) {
-            this.onEntityPickupItem(event);
-        }
+        this.onEntityPickupItem(event);
     }
 
-    @EventHandler
+    /**
+     * Routes a {@link PlayerDropItemEvent} whose item is this custom item.
+     *
+     * @param event the event
+     */
+    @ApiStatus.Internal
     public void playerDropItem(PlayerDropItemEvent event) {
-        if (this.isItem(event.getItemDrop().getItemStack())) {
-            ItemStack itemReplace = event.getItemDrop().getItemStack();
-            itemReplace.setData(DataComponentTypes.LORE, this.getItem().getDataOrDefault(DataComponentTypes.LORE, ItemLore.lore().build()));
-            itemReplace.setData(DataComponentTypes.ITEM_NAME, this.getItem().getDataOrDefault(DataComponentTypes.ITEM_NAME, this.getItem().displayName()));
-            if (this.getItem().hasData(DataComponentTypes.ITEM_MODEL)) {
-                itemReplace.setData(DataComponentTypes.ITEM_MODEL, this.getItem().getData(DataComponentTypes.ITEM_MODEL));
-            }
-            if (this.getItem().hasData(DataComponentTypes.CUSTOM_MODEL_DATA)) {
-                itemReplace.setData(DataComponentTypes.CUSTOM_MODEL_DATA, this.getItem().getData(DataComponentTypes.CUSTOM_MODEL_DATA));
-            }
-
-            event.getItemDrop().setItemStack(itemReplace); // Replace Item
-            this.onItemReplace(event, itemReplace);
-            if (event.isCancelled()) {
-                return;
-            }
-            this.onPlayerDropItem(event);
+        ItemStack itemReplace = event.getItemDrop().getItemStack();
+        itemReplace.setData(DataComponentTypes.LORE, this.getItem().getDataOrDefault(DataComponentTypes.LORE, ItemLore.lore().build()));
+        itemReplace.setData(DataComponentTypes.ITEM_NAME, this.getItem().getDataOrDefault(DataComponentTypes.ITEM_NAME, this.getItem().displayName()));
+        if (this.getItem().hasData(DataComponentTypes.ITEM_MODEL)) {
+            itemReplace.setData(DataComponentTypes.ITEM_MODEL, this.getItem().getData(DataComponentTypes.ITEM_MODEL));
+        }
+        if (this.getItem().hasData(DataComponentTypes.CUSTOM_MODEL_DATA)) {
+            itemReplace.setData(DataComponentTypes.CUSTOM_MODEL_DATA, this.getItem().getData(DataComponentTypes.CUSTOM_MODEL_DATA));
         }
-    }
-
-    @EventHandler
-    public void onPlayerItemConsumeEvent(PlayerItemConsumeEvent event) {
-        ItemStack itemConsume = event.getItem();
 
-        if (this.isItem(itemConsume)) {
-            this.onPlayerConsumeItem(event);
+        event.getItemDrop().setItemStack(itemReplace); // Replace Item
+        this.onItemReplace(event, itemReplace);
+        if (event.isCancelled()) {
+            return;
         }
+        this.onPlayerDropItem(event);
+    }
 
+    /**
+     * Routes a {@link PlayerItemConsumeEvent} whose item is this custom item.
+     *
+     * @param event the event
+     */
+    @ApiStatus.Internal
+    public void onPlayerItemConsumeEvent(PlayerItemConsumeEvent event) {
+        this.onPlayerConsumeItem(event);
     }
 
 }
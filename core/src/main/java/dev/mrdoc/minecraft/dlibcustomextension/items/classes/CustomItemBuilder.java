@@ -60,6 +60,12 @@ public class CustomItemBuilder {
      * @return the list of descriptions
      */
     private List<Component> descriptions = new ArrayList<>();
+    /**
+     * The lazy flag for the item.
+     *
+     * @return {@code true} if the item and recipe are built on first access
+     */
+    private boolean lazy = false;
 
     /**
      * Constructs a new CustomItemBuilder with the default plugin instance.
@@ -191,6 +197,31 @@ public class CustomItemBuilder {
         return this;
     }
 
+    /**
+     * Builds the item and recipe on first access instead of when the custom item is created.
+     * <br>
+     * The recipes of enabled lazy items are registered over the ticks after the enable, one item each
+     * tick, unless the item is used before. Disabled items are never built, their recipe is registered
+     * when a config reload enables them. The recipe is expected to use the key of the item.
+     *
+     * @return the builder
+     */
+    public CustomItemBuilder lazy() {
+        return this.lazy(true);
+    }
+
+    /**
+     * Sets whether the item and recipe are built on first access.
+     *
+     * @param lazy {@code true} for build on first access
+     * @return the builder
+     * @see #lazy()
+     */
+    public CustomItemBuilder lazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
     /**
      * Create a new builder for {@link AbstractCustomItem}.
      *
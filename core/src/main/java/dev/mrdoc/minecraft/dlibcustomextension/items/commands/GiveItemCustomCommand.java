@@ -2,6 +2,7 @@ package dev.mrdoc.minecraft.dlibcustomextension.items.commands;
 
 import dev.mrdoc.minecraft.dlibcustomextension.DLibCustomExtensionManager;
 import dev.mrdoc.minecraft.dlibcustomextension.commands.BaseCommand;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.item.ItemStackUtils;
 import java.util.Collection;
 import java.util.List;
 import net.kyori.adventure.text.Component;
@@ -37,8 +38,6 @@ public class GiveItemCustomCommand extends BaseCommand {
     @CommandDescription("Comando para dar items customs a un jugador")
     @Permission("cdlibcustomextensions.items.command.givecustomitem")
     public void executeGiveItemCustom(Source sourceSender, @Argument("target") MultiplePlayerSelector playerTargetsArgument, @Argument(value = "item", parserName = "parser_itemcustom") ItemStack itemStack, @Argument("amount") @Default("1") @Range(min = "1") int amount) {
-        itemStack.setAmount(amount);
-
         final Collection<Player> playersTargets = playerTargetsArgument.values();
 
         if (playersTargets.isEmpty()) {
@@ -46,7 +45,7 @@ public class GiveItemCustomCommand extends BaseCommand {
             return;
         }
 
-        playersTargets.forEach(player -> player.getInventory().addItem(itemStack));
+        ItemStackUtils.giveTo(playersTargets, itemStack, amount);
 
         Component componentMessage;
         if (playersTargets.size() > 1) {
@@ -8,12 +8,16 @@ import dev.mrdoc.minecraft.dlibcustomextension.potions.classes.AbstractCustomPot
 import dev.mrdoc.minecraft.dlibcustomextension.potions.commands.DisplayPotionCustomCommand;
 import dev.mrdoc.minecraft.dlibcustomextension.potions.commands.GivePotionCustomCommand;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.AnnotationProcessorUtil;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.EnabledSnapshot;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.config.ConfigHolder;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.persistence.PersistentDataKey;
-import java.io.File;
-import java.util.Arrays;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.CustomRegistry;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionIndex;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -25,8 +29,6 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
-import org.spongepowered.configurate.CommentedConfigurationNode;
-import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
 
 /**
  * Manages custom potions within the plugin, overseeing their loading, configuration, and interaction.
@@ -37,13 +39,10 @@ public class CustomPotionsManager {
 
     private static @Nullable NamespacedKey NAMESPACED_CUSTOM_POTION;
 
-    private static final HashSet<AbstractCustomPotion> CUSTOM_POTIONS = new HashSet<>();
+    private static volatile CustomRegistry<AbstractCustomPotion> CUSTOM_POTIONS = createRegistry();
 
     // Config
-    private static final String CONFIG_FILE_NAME = "config-custom-potions.yaml";
-    private static @Nullable YamlConfigurationLoader CONFIG_LOADER;
-    private static @Nullable CommentedConfigurationNode CONFIG_NODE;
-    private static @Nullable CustomPotionConfig CONFIG;
+    private static final ConfigHolder<CustomPotionConfig> CONFIG = new ConfigHolder<>("config-custom-potions.yaml", CustomPotionConfig.class, config -> EnabledSnapshot.of(config.isEnabled(), config.getNamePotions()));
 
     public static void load() {
         NAMESPACED_CUSTOM_POTION = new NamespacedKey(DLibCustomExtensionManager.getPluginInstance(), "custom_potion");
@@ -59,29 +58,61 @@ public class CustomPotionsManager {
 
     @SneakyThrows
     public static void saveConfig() {
-        Objects.requireNonNull(CONFIG_NODE).set(CustomPotionConfig.class, CONFIG); // Update the backing node
-        Objects.requireNonNull(CONFIG_LOADER).save(CONFIG_NODE); // Write to the original file
+        CONFIG.save(); // Write to the original file
     }
 
     @SneakyThrows
     private static void loadConfig() {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(DLibCustomExtensionManager.getPluginInstance().getDataFolder(), CONFIG_FILE_NAME).toPath())
-                .build();
-
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from a file
-        CONFIG = CONFIG_NODE.get(CustomPotionConfig.class); // Populate object
-        saveConfig(); // force a save
+        CONFIG.load(DLibCustomExtensionManager.getPluginInstance().getDataFolder().toPath()); // Load from file
+        saveConfig(); // force a save, skipped if the file does not change
     }
 
     @SneakyThrows
     public static void reloadConfig() {
-        CONFIG_LOADER = YamlConfigurationLoader.builder()
-                .path(new File(DLibCustomExtensionManager.getPluginInstance().getDataFolder(), CONFIG_FILE_NAME).toPath())
-                .build();
+        CONFIG.reload(); // Load from file
+    }
+
+    /**
+     * Starts reading the custom potion configuration in background, the next load waits for it.
+     *
+     * @param dataFolder the plugin data folder
+     */
+    @ApiStatus.Internal
+    public static void preloadConfig(Path dataFolder) {
+        CONFIG.loadAsync(dataFolder);
+    }
+
+    /**
+     * Gets the holder of the custom potions configuration.
+     *
+     * @return the config holder
+     */
+    @ApiStatus.Internal
+    public static ConfigHolder<CustomPotionConfig> getConfigHolder() {
+        return CONFIG;
+    }
+
+    /**
+     * Gets the custom potion classes of the plugin sorted into dependency waves.
+     * <br>
+     * Uses the index generated at compile time, or the class names in the {@code META-INF} file if
+     * the plugin was compiled without it.
+     *
+     * @param classLoader the plugin class loader
+     * @return the waves
+     */
+    private static List<List<DefinitionLoader.Node<AbstractCustomPotion>>> getWaves(final ClassLoader classLoader) {
+        DefinitionIndex<AbstractCustomPotion> index = DefinitionIndex.find(classLoader, CustomPotionContainerProcessor.INDEX_PATH);
+        if (index != null) {
+            return index.waves();
+        }
 
-        CONFIG_NODE = CONFIG_LOADER.load(); // Load from a file
-        CONFIG = CONFIG_NODE.get(CustomPotionConfig.class); // Populate object
+        List<DefinitionLoader.Node<AbstractCustomPotion>> nodes = new ArrayList<>();
+        for (Class<? extends AbstractCustomPotion> potionClass : getClasses(classLoader)) {
+            CustomPotionContainer annotation = potionClass.getAnnotation(CustomPotionContainer.class);
+            nodes.add(DefinitionLoader.Node.reflective(potionClass, annotation.depends(), annotation.strongDependency()));
+        }
+        return DefinitionLoader.sortWaves("potion", nodes);
     }
 
     @SuppressWarnings("unchecked")
@@ -106,43 +137,34 @@ public class CustomPotionsManager {
         return classes;
     }
 
+    /**
+     * Creates an empty registry for custom potions.
+     *
+     * @return the registry
+     */
+    private static CustomRegistry<AbstractCustomPotion> createRegistry() {
+        return new CustomRegistry<>(AbstractCustomPotion::getKey, AbstractBaseCustomPotion::getNamespaceKey);
+    }
+
     public static void loadAllCustomPotions() {
-        Set<Class<? extends AbstractCustomPotion>> reflectionCustomPotions = getClasses(DLibCustomExtensionManager.getInstance().getClassLoader());
-
-        Set<Class<? extends AbstractCustomPotion>> loadedClasses = new HashSet<>();
-        Set<Class<? extends AbstractCustomPotion>> failedClasses = new HashSet<>();
-
-        while (!reflectionCustomPotions.isEmpty()) {
-            Iterator<Class<? extends AbstractCustomPotion>> iterator = reflectionCustomPotions.iterator();
-
-            while (iterator.hasNext()) {
-                Class<? extends AbstractCustomPotion> potionClass = iterator.next();
-                CustomPotionContainer annotation = potionClass.getAnnotation(CustomPotionContainer.class);
-                Class<? extends AbstractCustomPotion>[] dependencies = annotation.depends();
-
-                boolean dependenciesLoaded = Arrays.stream(dependencies)
-                        .allMatch(dep -> loadedClasses.contains(dep) || (!annotation.strongDependency() && failedClasses.contains(dep)));
-
-                if (dependenciesLoaded) {
-                    try {
-                        AbstractCustomPotion customPotion = potionClass.getConstructor().newInstance();
-                        CUSTOM_POTIONS.add(customPotion);
-                        loadedClasses.add(potionClass);
-                        iterator.remove();
-                    } catch (Exception e) {
-                        LoggerUtils.warn("Cannot load [%s] potion custom".formatted(potionClass.getSimpleName()), e);
-                        failedClasses.add(potionClass);
-                        iterator.remove();
-                    }
-                }
-            }
-        }
+        ClassLoader classLoader = DLibCustomExtensionManager.getInstance().getClassLoader();
+        List<List<DefinitionLoader.Node<AbstractCustomPotion>>> waves = getWaves(classLoader);
+
+        // Potions can look up their dependencies while loading, so the registry is published before freezing it
+        CustomRegistry<AbstractCustomPotion> registry = createRegistry();
+        CUSTOM_POTIONS = registry;
+
+        DefinitionLoader.loadWaves("potion", waves, classLoader, customPotion -> {
+            registry.register(customPotion);
+            customPotion.registerListener();
+        });
 
-        LoggerUtils.info("Loaded " + CustomPotionsManager.CUSTOM_POTIONS.size() + " custom potions.");
+        registry.freeze();
+        LoggerUtils.info("Loaded " + registry.size() + " custom potions.");
     }
 
     public static void registerAllRecipes() {
-        for (AbstractCustomPotion basePotion : CUSTOM_POTIONS) {
+        for (AbstractCustomPotion basePotion : CUSTOM_POTIONS.values()) {
             try {
                 basePotion.registerPotionMix();
             } catch (IllegalStateException | IllegalArgumentException ex) {
@@ -152,7 +174,7 @@ public class CustomPotionsManager {
     }
 
     public static void unregisterAllRecipes() {
-        for (AbstractBaseCustomPotion basePotion : CUSTOM_POTIONS) {
+        for (AbstractBaseCustomPotion basePotion : CUSTOM_POTIONS.values()) {
             basePotion.unRegisterPotionMix();
         }
     }
@@ -169,7 +191,7 @@ public class CustomPotionsManager {
      * @return an Optional
      */
     public static Optional<AbstractCustomPotion> getCustomPotion(String internalName) {
-        return CUSTOM_POTIONS.stream().filter(basePotion -> basePotion.getKey().value().equalsIgnoreCase(internalName) || basePotion.getKey().toString().equalsIgnoreCase(internalName)).findFirst();
+        return Optional.ofNullable(CUSTOM_POTIONS.getByName(internalName));
     }
 
     /**
@@ -179,14 +201,11 @@ public class CustomPotionsManager {
      * @return an Optional
      */
     public static <T extends AbstractCustomPotion> Optional<T> getCustomPotion(Class<T> baseItemClass) {
-        return CUSTOM_POTIONS.stream().filter(baseItem -> baseItem.getClass().equals(baseItemClass)).map(baseItemClass::cast).findFirst();
+        return Optional.ofNullable(CUSTOM_POTIONS.getByClass(baseItemClass));
     }
 
     public static boolean isItemEnable(String internalName) {
-        if (CONFIG != null && !CONFIG.isEnabled()) {
-            return true;
-        }
-        return CONFIG != null && CONFIG.getNamePotions().stream().anyMatch(internalName::equalsIgnoreCase);
+        return CONFIG.getEnabled().isEnabled(internalName);
     }
 
     public static boolean isCustomItem(ItemStack item) {
@@ -200,17 +219,14 @@ public class CustomPotionsManager {
      * @return the internal key or null
      */
     public static @Nullable Key getInternalKey(@Nullable ItemStack item) {
-        if (item == null) {
-            return null;
-        }
-        if (!item.getPersistentDataContainer().has(Objects.requireNonNull(NAMESPACED_CUSTOM_POTION))) {
+        if (item == null || item.isEmpty()) {
             return null;
         }
-        return item.getPersistentDataContainer().get(NAMESPACED_CUSTOM_POTION, PersistentDataKey.KEY_CONTAINER);
+        return item.getPersistentDataContainer().get(Objects.requireNonNull(NAMESPACED_CUSTOM_POTION), PersistentDataKey.KEY_CONTAINER);
     }
 
     public static HashSet<NamespacedKey> getNamespacedKeys() {
-        return CUSTOM_POTIONS.stream().map(AbstractBaseCustomPotion::getNamespaceKey).collect(Collectors.toCollection(HashSet::new));
+        return CUSTOM_POTIONS.values().stream().map(AbstractBaseCustomPotion::getNamespaceKey).collect(Collectors.toCollection(HashSet::new));
     }
 
     /**
@@ -220,7 +236,7 @@ public class CustomPotionsManager {
      * @return an Optional
      */
     public static <T extends AbstractCustomPotion> Optional<ItemStack> getItem(Class<T> baseItemClass) {
-        return CustomPotionsManager.getCustomPotion(baseItemClass).map(AbstractBaseCustomPotion::getItemForPlayer).map(ItemStack::clone);
+        return CustomPotionsManager.getCustomPotion(baseItemClass).map(AbstractBaseCustomPotion::getItemForPlayer);
     }
 
     /**
@@ -230,7 +246,7 @@ public class CustomPotionsManager {
      * @return an Optional
      */
     public static Optional<ItemStack> getItem(String internalName) {
-        return CUSTOM_POTIONS.stream().filter(basePotion -> basePotion.getKey().value().equalsIgnoreCase(internalName) || basePotion.getKey().toString().equalsIgnoreCase(internalName)).map(AbstractBaseCustomPotion::getItemForPlayer).map(ItemStack::clone).findAny();
+        return Optional.ofNullable(CUSTOM_POTIONS.getByName(internalName)).map(AbstractBaseCustomPotion::getItemForPlayer);
     }
 
 }
@@ -3,6 +3,7 @@ package dev.mrdoc.minecraft.dlibcustomextension.potions.classes;
 import com.google.common.base.Preconditions;
 import dev.mrdoc.minecraft.dlibcustomextension.potions.CustomPotionsManager;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.RecipeDisplayAnimator;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.item.RecipeChoiceUtils;
 import dev.mrdoc.minecraft.dlibcustomextension.utils.persistence.PersistentDataKey;
 import io.papermc.paper.datacomponent.DataComponentTypes;
@@ -27,7 +28,6 @@ import org.bukkit.inventory.MenuType;
 import org.bukkit.inventory.RecipeChoice;
 import org.bukkit.inventory.view.BrewingStandView;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.jspecify.annotations.Nullable;
 
 /**
@@ -281,34 +281,11 @@ public abstract sealed class AbstractBaseCustomPotion permits AbstractCustomPoti
         List<ItemStack> inputVariants = this.getRecipeInputExamples();
         List<ItemStack> ingredientVariants = this.getRecipeIngredientExamples();
 
-        if (!inputVariants.isEmpty() || !ingredientVariants.isEmpty()) {
-            new BukkitRunnable() {
-                int tick = 0;
-
-                @Override
-                public void run() {
-                    if (brewingStandView.getTopInventory().getViewers().isEmpty()) {
-                        LoggerUtils.debug("Player " + player.getName() + " closed the brewing view, remove animation for choices recipes");
-                        this.cancel();
-                        return;
-                    }
-
-                    if (!inputVariants.isEmpty()) {
-                        ItemStack inputItem = inputVariants.get((tick / 20) % inputVariants.size());
-                        for (int basePos = 0; basePos < 3; basePos++) {
-                            brewingStandView.setItem(basePos, inputItem);
-                        }
-                    }
-
-                    if (!ingredientVariants.isEmpty()) {
-                        ItemStack ingredientItem = ingredientVariants.get((tick / 20) % ingredientVariants.size());
-                        brewingStandView.setItem(3, ingredientItem);
-                    }
-
-                    tick += 20;
-                }
-            }.runTaskTimer(this.instance, 0L, 20L);
+        RecipeDisplayAnimator.Session session = RecipeDisplayAnimator.session(player, brewingStandView);
+        for (int basePos = 0; basePos < 3; basePos++) {
+            session.animate(basePos, inputVariants);
         }
+        session.animate(3, ingredientVariants).start();
 
         return brewingStandView;
     }
@@ -344,10 +321,7 @@ public abstract sealed class AbstractBaseCustomPotion permits AbstractCustomPoti
         if (itemToCheck == null || itemToCheck.isEmpty() || itemToCheck.getAmount() <= 0) {
             return false;
         }
-        if (!itemToCheck.getPersistentDataContainer().has(CustomPotionsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER)) {
-            return false;
-        }
-        return Objects.equals(itemToCheck.getPersistentDataContainer().get(CustomPotionsManager.getNamespacedKey(), PersistentDataKey.KEY_CONTAINER), this.getKey());
+        return Objects.equals(CustomPotionsManager.getInternalKey(itemToCheck), this.getKey());
     }
 
     /**
@@ -356,6 +330,8 @@ public abstract sealed class AbstractBaseCustomPotion permits AbstractCustomPoti
     public void registerPotionMix() {
         LoggerUtils.info("Adding PotionMix " + this.getKey());
         Bukkit.getPotionBrewer().addPotionMix(this.getPotionMix());
+        RecipeChoiceUtils.precompute(this.getPotionMix().getInput());
+        RecipeChoiceUtils.precompute(this.getPotionMix().getIngredient());
     }
 
     /**
@@ -364,6 +340,8 @@ public abstract sealed class AbstractBaseCustomPotion permits AbstractCustomPoti
     public void unRegisterPotionMix() {
         LoggerUtils.info("Removing PotionMix " + this.getKey());
         Bukkit.getPotionBrewer().removePotionMix(this.getNamespaceKey());
+        RecipeChoiceUtils.evict(this.getPotionMix().getInput());
+        RecipeChoiceUtils.evict(this.getPotionMix().getIngredient());
     }
 
 }
@@ -2,6 +2,7 @@ package dev.mrdoc.minecraft.dlibcustomextension.potions.classes;
 
 import org.bukkit.Bukkit;
 import org.bukkit.event.Listener;
+import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Abstract class representing a custom potion with listener capabilities.
@@ -15,7 +16,17 @@ public abstract non-sealed class AbstractCustomPotion extends AbstractBaseCustom
      */
     public AbstractCustomPotion(CustomPotionBuilder customPotionBuilder) {
         super(customPotionBuilder.getPlugin(), customPotionBuilder.getInternalName(), customPotionBuilder.getDisplayName(), customPotionBuilder.getDescriptions());
-        Bukkit.getServer().getPluginManager().registerEvents(this, customPotionBuilder.getPlugin());
-        customPotionBuilder.getPlugin().getSLF4JLogger().info("Potion {} registered", this.getKey().toString());
+    }
+
+    /**
+     * Registers this potion as listener of its plugin.
+     * <br>
+     * Potions are created off the main thread while loading, so this is called by the manager once the
+     * potion is registered.
+     */
+    @ApiStatus.Internal
+    public void registerListener() {
+        Bukkit.getServer().getPluginManager().registerEvents(this, this.getInstance());
+        this.getInstance().getSLF4JLogger().info("Potion {} registered", this.getKey().toString());
     }
 }
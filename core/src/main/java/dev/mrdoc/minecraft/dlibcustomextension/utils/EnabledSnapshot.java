@@ -0,0 +1,59 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Immutable view of the enabled names of a module config.
+ * <br>
+ * Compiled when the config is loaded and published as a whole, so a check is a single hash lookup and
+ * never sees a config in the middle of a reload.
+ *
+ * @param restricted if only the listed names are enabled
+ * @param names      the case-folded enabled names
+ */
+@ApiStatus.Internal
+public record EnabledSnapshot(boolean restricted, Set<String> names) {
+
+    /**
+     * Snapshot without config, nothing is enabled.
+     */
+    public static final EnabledSnapshot NONE = new EnabledSnapshot(true, Set.of());
+
+    /**
+     * Compiles a snapshot.
+     *
+     * @param restricted if only the listed names are enabled
+     * @param names      the enabled names, case is ignored
+     * @return the snapshot
+     */
+    public static EnabledSnapshot of(boolean restricted, @Nullable Collection<String> names) {
+        if (!restricted) {
+            return new EnabledSnapshot(false, Set.of());
+        }
+        Set<String> foldedNames = new HashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                if (name != null) {
+                    foldedNames.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return new EnabledSnapshot(true, Set.copyOf(foldedNames));
+    }
+
+    /**
+     * Checks if a name is enabled, ignoring case.
+     *
+     * @param name the name
+     * @return {@code true} if is enabled
+     */
+    public boolean isEnabled(String name) {
+        return !this.restricted || this.names.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+}
@@ -0,0 +1,138 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils;
+
+import dev.mrdoc.minecraft.dlibcustomextension.DLibCustomExtensionManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Animates the recipe choices of all the open recipe displays from a single task.
+ * <p>
+ * Each display is a session with a list of animated slots. Every second the task advances all the
+ * sessions and only writes the slots whose variant changed, sessions without viewers are dropped
+ * and the task stops when there are no sessions left.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class RecipeDisplayAnimator {
+
+    private static final long PERIOD_TICKS = 20L;
+
+    private static final ArrayList<Session> SESSIONS = new ArrayList<>();
+    private static @Nullable BukkitTask TASK = null;
+    private static long FRAME = 0;
+
+    private RecipeDisplayAnimator() {
+    }
+
+    /**
+     * Creates a new session for an inventory view.
+     * <br>
+     * The session does nothing until {@link Session#start()} is called.
+     *
+     * @param player        the player viewing the recipe
+     * @param inventoryView the view to animate
+     * @return the session
+     */
+    public static Session session(Player player, InventoryView inventoryView) {
+        return new Session(player.getName(), inventoryView);
+    }
+
+    private static void tick() {
+        FRAME++;
+        int alive = 0;
+        for (int i = 0; i < SESSIONS.size(); i++) {
+            Session session = SESSIONS.get(i);
+            if (session.inventoryView.getTopInventory().getViewers().isEmpty()) {
+                LoggerUtils.debug("Player " + session.playerName + " closed the recipe view, remove animation for choices recipes");
+                continue;
+            }
+            session.render();
+            SESSIONS.set(alive++, session);
+        }
+        SESSIONS.subList(alive, SESSIONS.size()).clear();
+
+        if (SESSIONS.isEmpty() && TASK != null) {
+            TASK.cancel();
+            TASK = null;
+        }
+    }
+
+    /**
+     * The animated slots of an open recipe display.
+     */
+    public static final class Session {
+
+        private final String playerName;
+        private final InventoryView inventoryView;
+        private final List<Integer> slots = new ArrayList<>();
+        private final List<List<ItemStack>> variants = new ArrayList<>();
+        private int[] shownVariants = new int[0];
+        private long startFrame;
+
+        private Session(String playerName, InventoryView inventoryView) {
+            this.playerName = playerName;
+            this.inventoryView = inventoryView;
+        }
+
+        /**
+         * Adds a slot that cycles between some variants.
+         *
+         * @param slot     the slot in the top inventory
+         * @param variants the variants to show, ignored if empty
+         * @return this session
+         */
+        public Session animate(int slot, List<ItemStack> variants) {
+            if (!variants.isEmpty()) {
+                this.slots.add(slot);
+                this.variants.add(variants);
+            }
+            return this;
+        }
+
+        /**
+         * Shows the first variant of every slot and, if any slot has more than one variant, schedules
+         * the session in the shared task.
+         */
+        public void start() {
+            if (this.slots.isEmpty()) {
+                return;
+            }
+            this.startFrame = FRAME;
+            this.shownVariants = new int[this.slots.size()];
+            boolean animated = false;
+            for (int i = 0; i < this.slots.size(); i++) {
+                this.inventoryView.getTopInventory().setItem(this.slots.get(i), this.variants.get(i).getFirst());
+                animated |= this.variants.get(i).size() > 1;
+            }
+            if (!animated) {
+                return;
+            }
+
+            SESSIONS.add(this);
+            if (TASK == null) {
+                TASK = Bukkit.getScheduler().runTaskTimer(DLibCustomExtensionManager.getPluginInstance(), RecipeDisplayAnimator::tick, PERIOD_TICKS, PERIOD_TICKS);
+            }
+        }
+
+        private void render() {
+            long elapsed = FRAME - this.startFrame;
+            for (int i = 0; i < this.shownVariants.length; i++) {
+                List<ItemStack> slotVariants = this.variants.get(i);
+                int variant = (int) (elapsed % slotVariants.size());
+                if (variant != this.shownVariants[i]) {
+                    this.shownVariants[i] = variant;
+                    this.inventoryView.getTopInventory().setItem(this.slots.get(i), slotVariants.get(variant));
+                }
+            }
+        }
+
+    }
+
+}
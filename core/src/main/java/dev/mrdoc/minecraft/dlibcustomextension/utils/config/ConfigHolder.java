@@ -0,0 +1,259 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.config;
+
+import dev.mrdoc.minecraft.dlibcustomextension.utils.EnabledSnapshot;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+import org.spongepowered.configurate.CommentedConfigurationNode;
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
+
+/**
+ * Holds the loaded config of a module.
+ * <p>
+ * The node, the mapped config and its {@link EnabledSnapshot} are published together as a single
+ * {@link Snapshot}, so a reload from any thread is one atomic swap and readers never see a config
+ * half loaded.
+ * </p>
+ * <p>
+ * The file can be read ahead with {@link #loadAsync(Path)} and saves are written by {@link ConfigIO}:
+ * repeated saves are coalesced into one write of the latest state, and the file is not touched if
+ * its content would not change.
+ * </p>
+ *
+ * @param <C> the config type
+ */
+@ApiStatus.Internal
+public final class ConfigHolder<C> {
+
+    private final String fileName;
+    private final Class<C> configClass;
+    private final Function<C, EnabledSnapshot> enabledFunction;
+    private final AtomicReference<@Nullable Snapshot<C>> snapshot = new AtomicReference<>();
+    private final AtomicReference<@Nullable CommentedConfigurationNode> pendingSave = new AtomicReference<>();
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+    private volatile @Nullable Path path;
+    private volatile @Nullable CompletableFuture<Void> pendingLoad;
+    // The content of the last save, to tell our own writes from the changes made by hand
+    private volatile @Nullable String savedContent;
+
+    /**
+     * Creates a holder for a config file.
+     *
+     * @param fileName        the file name inside the plugin data folder
+     * @param configClass     the config class
+     * @param enabledFunction function to compile the enabled names of a config
+     */
+    public ConfigHolder(String fileName, Class<C> configClass, Function<C, EnabledSnapshot> enabledFunction) {
+        this.fileName = fileName;
+        this.configClass = configClass;
+        this.enabledFunction = enabledFunction;
+    }
+
+    /**
+     * Gets the file name of the config.
+     *
+     * @return the file name
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Gets the path of the config file.
+     *
+     * @return the path, {@code null} if the config was never loaded
+     */
+    public @Nullable Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the current config.
+     *
+     * @return the config or {@code null}
+     */
+    public @Nullable C getConfig() {
+        Snapshot<C> current = this.snapshot.get();
+        return current == null ? null : current.config();
+    }
+
+    /**
+     * Gets the enabled names of the current config.
+     *
+     * @return the enabled snapshot, {@link EnabledSnapshot#NONE} if there is no config
+     */
+    public EnabledSnapshot getEnabled() {
+        Snapshot<C> current = this.snapshot.get();
+        return current == null ? EnabledSnapshot.NONE : current.enabled();
+    }
+
+    /**
+     * Adds a listener called after a new config is published, from the thread that published it.
+     *
+     * @param listener the listener
+     */
+    public void onReload(Runnable listener) {
+        this.reloadListeners.add(listener);
+    }
+
+    /**
+     * Starts reading the config from a data folder in background.
+     * <br>
+     * A later {@link #load(Path)} with the same folder waits for this read instead of reading again.
+     *
+     * @param dataFolder the plugin data folder
+     */
+    public void loadAsync(Path dataFolder) {
+        Path configPath = resolve(dataFolder);
+        if (this.pendingLoad != null && configPath.equals(this.path)) {
+            return; // Already reading
+        }
+        this.path = configPath;
+        this.pendingLoad = ConfigIO.run(() -> this.publish(this.read()));
+    }
+
+    /**
+     * Loads the config from a data folder and publishes it.
+     *
+     * @param dataFolder the plugin data folder
+     * @throws ConfigurateException if the file cannot be read
+     */
+    public void load(Path dataFolder) throws ConfigurateException {
+        Path configPath = resolve(dataFolder);
+        CompletableFuture<Void> load = this.pendingLoad;
+        this.pendingLoad = null;
+        if (load != null && configPath.equals(this.path)) {
+            try {
+                load.join();
+                return;
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof ConfigurateException configurateException) {
+                    throw configurateException;
+                }
+                throw ex;
+            }
+        }
+        this.path = configPath;
+        this.publish(this.read());
+    }
+
+    private Path resolve(Path dataFolder) {
+        return dataFolder.resolve(this.fileName).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Loads the config again from its file and publishes it.
+     *
+     * @throws ConfigurateException if the file cannot be read
+     */
+    public void reload() throws ConfigurateException {
+        this.publish(this.read());
+    }
+
+    /**
+     * Reads and maps the config file without publishing it.
+     *
+     * @return the snapshot read
+     * @throws ConfigurateException if the file cannot be read or mapped
+     */
+    public Snapshot<C> read() throws ConfigurateException {
+        YamlConfigurationLoader loader = YamlConfigurationLoader.builder()
+                .path(Objects.requireNonNull(this.path, "The config was never loaded"))
+                .build();
+        CommentedConfigurationNode node = loader.load(); // Load from file
+        C config = node.get(this.configClass); // Populate object
+        EnabledSnapshot enabled = config == null ? EnabledSnapshot.NONE : this.enabledFunction.apply(config);
+        return new Snapshot<>(node, config, enabled);
+    }
+
+    /**
+     * Publishes a snapshot as the current config.
+     *
+     * @param newSnapshot the snapshot
+     */
+    public void publish(Snapshot<C> newSnapshot) {
+        this.snapshot.set(newSnapshot);
+        this.reloadListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Saves the current config to its file in background.
+     * <br>
+     * The state is captured now, saves requested before the write starts are merged into one write.
+     *
+     * @throws ConfigurateException if the config cannot be serialized
+     */
+    public void save() throws ConfigurateException {
+        Snapshot<C> current = Objects.requireNonNull(this.snapshot.get(), "The config was never loaded");
+        current.node().set(this.configClass, current.config()); // Update the backing node
+        if (this.pendingSave.getAndSet(current.node().copy()) == null) {
+            ConfigIO.run(this::writePendingSave);
+        }
+    }
+
+    private synchronized void writePendingSave() throws IOException {
+        CommentedConfigurationNode node = this.pendingSave.getAndSet(null);
+        if (node == null) {
+            return;
+        }
+        Path configPath = Objects.requireNonNull(this.path);
+
+        StringWriter writer = new StringWriter();
+        YamlConfigurationLoader.builder().sink(() -> new BufferedWriter(writer)).build().save(node);
+        String content = writer.toString();
+        this.savedContent = content;
+        if (Files.exists(configPath) && content.equals(Files.readString(configPath))) {
+            LoggerUtils.debug("Skip saving " + this.fileName + ", the file is unchanged");
+            return;
+        }
+
+        // Write to the original file
+        Files.createDirectories(configPath.getParent());
+        Path tempPath = configPath.resolveSibling(this.fileName + ".tmp");
+        Files.writeString(tempPath, content);
+        try {
+            Files.move(tempPath, configPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPath, configPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Checks if the file still has the content of the last save, so a change on disk was written by this holder.
+     *
+     * @return {@code true} if the file is the last content saved
+     * @throws IOException if the file cannot be read
+     */
+    public boolean isSavedContent() throws IOException {
+        String content = this.savedContent;
+        Path configPath = this.path;
+        return content != null && configPath != null && Files.exists(configPath) && content.equals(Files.readString(configPath));
+    }
+
+    /**
+     * A loaded config.
+     *
+     * @param node    the root node
+     * @param config  the mapped config
+     * @param enabled the compiled enabled names
+     * @param <C>     the config type
+     */
+    public record Snapshot<C>(CommentedConfigurationNode node, @Nullable C config, EnabledSnapshot enabled) {
+    }
+
+}
@@ -0,0 +1,88 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.config;
+
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Executor for the config file I/O, so reading and writing the files never blocks the server threads.
+ * <br>
+ * Each task runs in its own virtual thread.
+ */
+@ApiStatus.Internal
+public final class ConfigIO {
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("DLibCustomExtension-ConfigIO-", 0).factory());
+    private static final Set<CompletableFuture<Void>> PENDING_TASKS = ConcurrentHashMap.newKeySet();
+
+    private ConfigIO() {
+    }
+
+    /**
+     * Runs an I/O task in a virtual thread.
+     * <br>
+     * A failure is logged even if the future is never joined.
+     *
+     * @param task the task
+     * @return a future completed when the task ends, exceptionally if the task fails
+     */
+    public static CompletableFuture<Void> run(IOTask task) {
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, EXECUTOR);
+        PENDING_TASKS.add(future);
+        future.whenComplete((unused, throwable) -> {
+            PENDING_TASKS.remove(future);
+            // Most tasks are not joined, like the saves, so the failure is logged here
+            if (throwable != null) {
+                LoggerUtils.error("Config IO task failed", throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for the pending tasks, used on disable so the last saves are not lost.
+     *
+     * @param timeout the max time to wait
+     */
+    public static void awaitPending(Duration timeout) {
+        try {
+            CompletableFuture.allOf(PENDING_TASKS.toArray(CompletableFuture[]::new)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException ex) {
+            LoggerUtils.warn("Timed out waiting for the config files to be written");
+        } catch (Exception ex) {
+            LoggerUtils.warn("A config file task failed", ex);
+        }
+    }
+
+    /**
+     * An I/O task that can fail.
+     */
+    @FunctionalInterface
+    public interface IOTask {
+
+        /**
+         * Runs the task.
+         *
+         * @throws Exception if the task fails
+         */
+        void run() throws Exception;
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.config;
+
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Reloads config files when they change on disk.
+ * <p>
+ * A daemon thread watches the data folder. Changes of a file are debounced, then the file is
+ * parsed and validated on a background thread and only a valid config is published through
+ * {@link ConfigHolder#publish(ConfigHolder.Snapshot)}. The main thread never reads the files.
+ * Files that still have the content of the last save of their holder are not reloaded.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class ConfigWatcher {
+
+    private static final long DEBOUNCE_MILLIS = 500L;
+
+    private static @Nullable ConfigWatcher INSTANCE;
+
+    private final WatchService watchService;
+    private final Map<String, ConfigHolder<?>> holders = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> pendingReloads = new HashMap<>();
+    private final ScheduledExecutorService reloadExecutor;
+    private final Thread watchThread;
+
+    private ConfigWatcher(Path dataFolder, Iterable<ConfigHolder<?>> configHolders) throws IOException {
+        for (ConfigHolder<?> configHolder : configHolders) {
+            this.holders.put(configHolder.getFileName(), configHolder);
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        dataFolder.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DLibCustomExtension-ConfigReload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchThread = new Thread(this::watch, "DLibCustomExtension-ConfigWatcher");
+        this.watchThread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the config files of some holders, stopping any previous watcher.
+     *
+     * @param dataFolder    the folder with the config files
+     * @param configHolders the configs to reload
+     */
+    public static synchronized void start(Path dataFolder, Iterable<ConfigHolder<?>> configHolders) {
+        stop();
+        try {
+            ConfigWatcher configWatcher = new ConfigWatcher(dataFolder, configHolders);
+            configWatcher.watchThread.start();
+            INSTANCE = configWatcher;
+            LoggerUtils.info("Watching config files in " + dataFolder + " for hot reload.");
+        } catch (IOException ex) {
+            LoggerUtils.warn("Cannot watch the config files for hot reload", ex);
+        }
+    }
+
+    /**
+     * Stops the current watcher, if any.
+     */
+    public static synchronized void stop() {
+        if (INSTANCE == null) {
+            return;
+        }
+        INSTANCE.reloadExecutor.shutdownNow();
+        try {
+            INSTANCE.watchService.close();
+        } catch (IOException ex) {
+            LoggerUtils.warn("Cannot close the config watcher", ex);
+        }
+        INSTANCE = null;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = this.watchService.take();
+                for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                    if (watchEvent.context() instanceof Path changedPath) {
+                        ConfigHolder<?> configHolder = this.holders.get(changedPath.getFileName().toString());
+                        if (configHolder != null) {
+                            this.scheduleReload(configHolder);
+                        }
+                    }
+                }
+                if (!watchKey.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Watcher stopped
+        }
+    }
+
+    private synchronized void scheduleReload(ConfigHolder<?> configHolder) {
+        // Editors can write a file several times in a row, only the last change is reloaded
+        ScheduledFuture<?> pendingReload = this.pendingReloads.get(configHolder.getFileName());
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        if (this.reloadExecutor.isShutdown()) {
+            return;
+        }
+        this.pendingReloads.put(configHolder.getFileName(), this.reloadExecutor.schedule(() -> reload(configHolder), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    private static <C> void reload(ConfigHolder<C> configHolder) {
+        ConfigHolder.Snapshot<C> snapshot;
+        try {
+            // The saves of the library also change the file, that content is already loaded
+            if (configHolder.isSavedContent()) {
+                LoggerUtils.debug("Skip reloading " + configHolder.getFileName() + ", the file is the last save");
+                return;
+            }
+            snapshot = configHolder.read();
+        } catch (Exception ex) {
+            LoggerUtils.warn("Cannot reload [%s], keeping the current config".formatted(configHolder.getFileName()), ex);
+            return;
+        }
+        if (snapshot.config() == null) {
+            LoggerUtils.warn("Cannot reload [%s], the file is empty or invalid, keeping the current config".formatted(configHolder.getFileName()));
+            return;
+        }
+        configHolder.publish(snapshot);
+        LoggerUtils.info("Reloaded " + configHolder.getFileName());
+    }
+
+}
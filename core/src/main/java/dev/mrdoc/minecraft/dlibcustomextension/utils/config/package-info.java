@@ -0,0 +1,4 @@
+@NullMarked
+package dev.mrdoc.minecraft.dlibcustomextension.utils.config;
+
+import org.jspecify.annotations.NullMarked;
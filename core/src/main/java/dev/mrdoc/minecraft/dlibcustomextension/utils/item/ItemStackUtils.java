@@ -0,0 +1,59 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Utilities to create and give copies of an item.
+ */
+public class ItemStackUtils {
+
+    /**
+     * Splits an amount of an item into stacks of its max stack size.
+     * <br>
+     * The prototype is not modified, each stack is a single copy of it.
+     *
+     * @param prototype   the item to copy
+     * @param totalAmount the total amount of items
+     * @return the stacks, empty if the amount is not positive
+     */
+    public static List<ItemStack> createStacks(ItemStack prototype, int totalAmount) {
+        if (totalAmount <= 0 || prototype.isEmpty()) {
+            return List.of();
+        }
+        int maxStackSize = Math.max(1, prototype.getMaxStackSize());
+        List<ItemStack> stacks = new ArrayList<>((totalAmount + maxStackSize - 1) / maxStackSize);
+        for (int remaining = totalAmount; remaining > 0; remaining -= maxStackSize) {
+            stacks.add(prototype.asQuantity(Math.min(remaining, maxStackSize)));
+        }
+        return stacks;
+    }
+
+    /**
+     * Gives an amount of an item to some players, like the vanilla give command.
+     * <br>
+     * Each player gets their own stacks, the items that do not fit in the inventory are dropped at
+     * the feet of the player, owned by them and with a pickup delay of 0 so they are picked up at once.
+     *
+     * @param players   the players
+     * @param prototype the item to copy, it is not modified
+     * @param amount    the amount of items for each player
+     */
+    public static void giveTo(Collection<? extends Player> players, ItemStack prototype, int amount) {
+        for (Player player : players) {
+            List<ItemStack> stacks = createStacks(prototype, amount);
+            if (stacks.isEmpty()) {
+                return;
+            }
+            player.getInventory().addItem(stacks.toArray(ItemStack[]::new)).values().forEach(leftover ->
+                    player.getWorld().dropItem(player.getLocation(), leftover, item -> {
+                        item.setOwner(player.getUniqueId());
+                        item.setPickupDelay(0);
+                    }));
+        }
+    }
+
+}
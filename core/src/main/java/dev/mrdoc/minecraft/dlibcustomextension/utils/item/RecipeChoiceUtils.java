@@ -1,26 +1,136 @@
 package dev.mrdoc.minecraft.dlibcustomextension.utils.item;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Registry;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.ItemType;
+import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+import org.bukkit.inventory.SmithingTransformRecipe;
 import org.jspecify.annotations.Nullable;
 
 public class RecipeChoiceUtils {
 
+    /**
+     * Expansions of the registered choices, by instance.
+     */
+    private static final Map<RecipeChoice, List<ItemStack>> EXPANSIONS_BY_INSTANCE = Collections.synchronizedMap(new IdentityHashMap<>());
+    /**
+     * Expansions of the registered choices, by equality.
+     * <br>
+     * Bukkit recipes return a copy of their choices, so the copies are found here. Equal choices of
+     * several recipes share the entry, it is removed when the last of them is evicted. The keys are
+     * private copies, an {@link RecipeChoice.ExactChoice} holds items that can be modified.
+     */
+    private static final Map<RecipeChoice, Expansion> EXPANSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * A shared expansion.
+     *
+     * @param itemStacks the item stacks
+     * @param references the registered choices using it
+     */
+    private record Expansion(List<ItemStack> itemStacks, int references) {
+    }
+
     /**
      * Gets a list of {@link ItemStack} representations from a {@link RecipeChoice}.
+     * <br>
+     * The list is shared for precomputed choices, it is immutable and the items must not be modified.
      *
      * @param recipeChoice the recipe choice to convert
      * @return a list of corresponding item stacks
      */
-    @SuppressWarnings("UnstableApiUsage")
     public static List<ItemStack> getRecipeChoiceItemStacks(@Nullable RecipeChoice recipeChoice) {
+        if (recipeChoice == null) {
+            return List.of();
+        }
+        List<ItemStack> itemStacks = EXPANSIONS_BY_INSTANCE.get(recipeChoice);
+        if (itemStacks != null) {
+            return itemStacks;
+        }
+        Expansion expansion = EXPANSIONS.get(recipeChoice);
+        if (expansion != null) {
+            return expansion.itemStacks();
+        }
+        return expand(recipeChoice);
+    }
+
+    /**
+     * Precomputes the item stacks of a recipe choice.
+     *
+     * @param recipeChoice the recipe choice
+     */
+    public static void precompute(@Nullable RecipeChoice recipeChoice) {
+        if (recipeChoice == null) {
+            return;
+        }
+        Expansion expansion = EXPANSIONS.compute(recipeChoice.clone(), (snapshot, current) -> current == null ? new Expansion(expand(snapshot), 1) : new Expansion(current.itemStacks(), current.references() + 1));
+        EXPANSIONS_BY_INSTANCE.put(recipeChoice, expansion.itemStacks());
+    }
+
+    /**
+     * Precomputes the item stacks of all the choices of a recipe.
+     *
+     * @param recipe the recipe
+     */
+    public static void precompute(@Nullable Recipe recipe) {
+        getRecipeChoices(recipe).forEach(RecipeChoiceUtils::precompute);
+    }
+
+    /**
+     * Removes the precomputed item stacks of a recipe choice.
+     * <br>
+     * The expansion is kept while other registered choices equal to this one use it, so each
+     * precompute must be paired with one evict.
+     *
+     * @param recipeChoice the recipe choice
+     */
+    public static void evict(@Nullable RecipeChoice recipeChoice) {
+        if (recipeChoice == null) {
+            return;
+        }
+        EXPANSIONS_BY_INSTANCE.remove(recipeChoice);
+        EXPANSIONS.computeIfPresent(recipeChoice, (snapshot, current) -> current.references() > 1 ? new Expansion(current.itemStacks(), current.references() - 1) : null);
+    }
+
+    /**
+     * Removes the precomputed item stacks of all the choices of a recipe.
+     *
+     * @param recipe the recipe
+     */
+    public static void evict(@Nullable Recipe recipe) {
+        getRecipeChoices(recipe).forEach(RecipeChoiceUtils::evict);
+    }
+
+    private static List<RecipeChoice> getRecipeChoices(@Nullable Recipe recipe) {
+        List<RecipeChoice> recipeChoices = new ArrayList<>();
+        switch (recipe) {
+            case ShapedRecipe shapedRecipe -> shapedRecipe.getChoiceMap().values().stream().filter(Objects::nonNull).forEach(recipeChoices::add);
+            case ShapelessRecipe shapelessRecipe -> recipeChoices.addAll(shapelessRecipe.getChoiceList());
+            case SmithingTransformRecipe smithingTransformRecipe -> {
+                recipeChoices.add(smithingTransformRecipe.getTemplate());
+                recipeChoices.add(smithingTransformRecipe.getBase());
+                recipeChoices.add(smithingTransformRecipe.getAddition());
+            }
+            case null, default -> {
+            }
+        }
+        return recipeChoices;
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private static List<ItemStack> expand(RecipeChoice recipeChoice) {
         if (recipeChoice instanceof RecipeChoice.ExactChoice exactChoice) {
-            return exactChoice.getChoices();
+            return List.copyOf(exactChoice.getChoices());
         } else if (recipeChoice instanceof RecipeChoice.ItemTypeChoice itemTypeChoice) {
             List<ItemStack> itemStacks = new ArrayList<>();
             itemTypeChoice.itemTypes().forEach(itemTypeTypedKey -> {
@@ -29,7 +139,7 @@ public class RecipeChoiceUtils {
                     itemStacks.add(itemType.createItemStack());
                 }
             });
-            return itemStacks;
+            return List.copyOf(itemStacks);
         } else if (recipeChoice instanceof RecipeChoice.MaterialChoice materialChoice) {
             return materialChoice.getChoices().stream()
                     .map(material -> Objects.requireNonNull(material.asItemType()).createItemStack())
@@ -1,13 +1,42 @@
 package dev.mrdoc.minecraft.dlibcustomextension.utils.persistence;
 
+import java.util.concurrent.ConcurrentHashMap;
 import net.kyori.adventure.key.Key;
 import org.bukkit.persistence.PersistentDataAdapterContext;
 import org.bukkit.persistence.PersistentDataType;
 
+/**
+ * Persistent data type for {@link Key}.
+ * <p>
+ * Keys of registered definitions are interned, so reading a known key returns the canonical
+ * instance without parsing or allocating. Unknown keys are parsed as usual and not cached.
+ * </p>
+ */
 public class PersistentDataKey implements PersistentDataType<String, Key> {
 
     public static PersistentDataKey KEY_CONTAINER = new PersistentDataKey();
 
+    private static final ConcurrentHashMap<String, Key> INTERNED_KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * Interns a key, returning the canonical instance for it.
+     * <br>
+     * The canonical instance is always a plain Adventure key, so it can be compared by reference
+     * with the keys read from a persistent data container.
+     *
+     * @param key the key to intern
+     * @return the canonical key
+     */
+    public static Key intern(Key key) {
+        Key canonical = INTERNED_KEYS.get(key.asString());
+        if (canonical != null) {
+            return canonical;
+        }
+        Key plainKey = Key.key(key.namespace(), key.value());
+        canonical = INTERNED_KEYS.putIfAbsent(plainKey.asString(), plainKey);
+        return canonical != null ? canonical : plainKey;
+    }
+
     @Override
     public Class<String> getPrimitiveType() {
         return String.class;
@@ -25,6 +54,10 @@ public class PersistentDataKey implements PersistentDataType<String, Key> {
 
     @Override
     public Key fromPrimitive(String primitive, PersistentDataAdapterContext context) {
+        Key interned = INTERNED_KEYS.get(primitive);
+        if (interned != null) {
+            return interned;
+        }
         return Key.key(primitive);
     }
 
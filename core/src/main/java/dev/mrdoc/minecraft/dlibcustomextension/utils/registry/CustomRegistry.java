@@ -0,0 +1,198 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import com.google.common.base.Preconditions;
+import dev.mrdoc.minecraft.dlibcustomextension.utils.persistence.PersistentDataKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import net.kyori.adventure.key.Key;
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Indexed registry for custom definitions (items, potions...).
+ * <p>
+ * Definitions are registered while loading and then the registry is frozen, after that every index
+ * is an immutable map and each lookup is a single hash probe:
+ * <ul>
+ *     <li>by full {@link Key}</li>
+ *     <li>by case-folded name, using the full key ({@code namespace:value}) or only the value</li>
+ *     <li>by definition class</li>
+ *     <li>by recipe key</li>
+ * </ul>
+ *
+ * @param <T> the definition type
+ */
+@ApiStatus.Internal
+public final class CustomRegistry<T> {
+
+    private final Function<T, Key> keyFunction;
+    private final Function<T, @Nullable Key> recipeKeyFunction;
+
+    private List<T> values = new ArrayList<>();
+    private Map<Key, T> byKey = new HashMap<>();
+    private Map<String, T> byFullName = new HashMap<>();
+    private Map<String, T> byValue = new HashMap<>();
+    private Map<Class<?>, T> byClass = new HashMap<>();
+    private Map<Key, T> byRecipeKey = new HashMap<>();
+    private boolean frozen = false;
+
+    /**
+     * Creates a new empty registry.
+     *
+     * @param keyFunction       function to get the key of a definition
+     * @param recipeKeyFunction function to get the recipe key of a definition, can return {@code null}
+     */
+    public CustomRegistry(Function<T, Key> keyFunction, Function<T, @Nullable Key> recipeKeyFunction) {
+        this.keyFunction = keyFunction;
+        this.recipeKeyFunction = recipeKeyFunction;
+    }
+
+    /**
+     * Registers a definition in all indexes.
+     * <br>
+     * The first registered definition wins if a name is duplicated.
+     *
+     * @param value the definition
+     * @throws IllegalStateException if the registry is frozen
+     */
+    public void register(T value) {
+        Preconditions.checkState(!this.frozen, "The registry is frozen");
+        Key key = PersistentDataKey.intern(this.keyFunction.apply(value));
+        this.values.add(value);
+        this.byKey.putIfAbsent(key, value);
+        this.byFullName.putIfAbsent(fold(key.asString()), value);
+        this.byValue.putIfAbsent(fold(key.value()), value);
+        this.byClass.putIfAbsent(value.getClass(), value);
+        Key recipeKey = this.recipeKeyFunction.apply(value);
+        if (recipeKey != null) {
+            this.byRecipeKey.putIfAbsent(normalize(recipeKey), value);
+        }
+    }
+
+    /**
+     * Freezes the registry, copying all indexes into immutable maps.
+     */
+    public void freeze() {
+        if (this.frozen) {
+            return;
+        }
+        this.values = List.copyOf(this.values);
+        this.byKey = Map.copyOf(this.byKey);
+        this.byFullName = Map.copyOf(this.byFullName);
+        this.byValue = Map.copyOf(this.byValue);
+        this.byClass = Map.copyOf(this.byClass);
+        this.byRecipeKey = Map.copyOf(this.byRecipeKey);
+        this.frozen = true;
+    }
+
+    /**
+     * Gets all the definitions in registration order.
+     *
+     * @return the definitions
+     */
+    public List<T> values() {
+        return this.frozen ? this.values : List.copyOf(this.values);
+    }
+
+    /**
+     * Gets the amount of registered definitions.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Gets a definition by its key.
+     * <br>
+     * Keys read with {@link PersistentDataKey} are the same interned instances used by this index.
+     *
+     * @param key the key
+     * @return the definition or {@code null}
+     */
+    public @Nullable T getByKey(@Nullable Key key) {
+        if (key == null) {
+            return null;
+        }
+        return this.byKey.get(key instanceof NamespacedKey ? normalize(key) : key);
+    }
+
+    /**
+     * Gets a definition by its name, ignoring case.
+     * <br>
+     * The name can be the full key ({@code namespace:value}) or only the value.
+     *
+     * @param name the name
+     * @return the definition or {@code null}
+     */
+    public @Nullable T getByName(@Nullable String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        String folded = fold(name);
+        T value = this.byValue.get(folded);
+        return value != null ? value : this.byFullName.get(folded);
+    }
+
+    /**
+     * Gets a definition by the value of its key, ignoring case.
+     *
+     * @param value the key value
+     * @return the definition or {@code null}
+     */
+    public @Nullable T getByValue(@Nullable String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return this.byValue.get(fold(value));
+    }
+
+    /**
+     * Gets a definition by its class.
+     *
+     * @param clazz the class
+     * @param <C>   the class type
+     * @return the definition or {@code null}
+     */
+    public <C extends T> @Nullable C getByClass(Class<C> clazz) {
+        T value = this.byClass.get(clazz);
+        return value == null ? null : clazz.cast(value);
+    }
+
+    /**
+     * Gets a definition by its recipe key.
+     *
+     * @param recipeKey the recipe key
+     * @return the definition or {@code null}
+     */
+    public @Nullable T getByRecipeKey(@Nullable Key recipeKey) {
+        if (recipeKey == null) {
+            return null;
+        }
+        return this.byRecipeKey.get(recipeKey instanceof NamespacedKey ? normalize(recipeKey) : recipeKey);
+    }
+
+    /**
+     * Normalizes a key into a plain Adventure key.
+     * <br>
+     * {@link NamespacedKey} does not share the hash code of the Adventure implementation, so all the
+     * indexes use plain keys.
+     *
+     * @param key the key
+     * @return the plain key
+     */
+    private static Key normalize(Key key) {
+        return Key.key(key.namespace(), key.value());
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+}
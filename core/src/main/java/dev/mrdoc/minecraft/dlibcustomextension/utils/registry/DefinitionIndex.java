@@ -0,0 +1,65 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Index of the custom definitions of a plugin, generated by the container annotation processors.
+ * <p>
+ * The generated class holds the definitions already sorted into dependency waves, with their
+ * dependency metadata and a constructor reference for each one, so loading them needs no reflection.
+ * </p>
+ *
+ * @param <T> the definition type
+ */
+@ApiStatus.Internal
+public interface DefinitionIndex<T> {
+
+    /**
+     * Gets the definitions grouped by dependency level, a wave only depends on the previous ones.
+     *
+     * @return the waves
+     */
+    List<List<DefinitionLoader.Node<T>>> waves();
+
+    /**
+     * Finds the generated index of a plugin.
+     * <br>
+     * The name of the index is read from a resource of the plugin itself, and the class must be defined
+     * by the plugin class loader. Plugin class loaders also see the other plugins, so an index of another
+     * plugin is never used.
+     *
+     * @param classLoader the plugin class loader
+     * @param indexPath   the resource with the name of the generated index class
+     * @param <T>         the definition type
+     * @return the index, or {@code null} if the plugin was not compiled with the index
+     */
+    @SuppressWarnings("unchecked")
+    static <T> @Nullable DefinitionIndex<T> find(ClassLoader classLoader, String indexPath) {
+        // Only the own jar, getResource also looks in the parent and the other plugins
+        URL resource = classLoader instanceof URLClassLoader urlClassLoader ? urlClassLoader.findResource(indexPath) : classLoader.getResource(indexPath);
+        if (resource == null) {
+            return null;
+        }
+        @Nullable String className = null;
+        try (InputStream stream = resource.openStream()) {
+            className = new String(stream.readAllBytes(), StandardCharsets.UTF_8).trim();
+            Class<?> indexClass = Class.forName(className, true, classLoader);
+            if (indexClass.getClassLoader() != classLoader) {
+                LoggerUtils.warn("The index %s is not from this plugin".formatted(className));
+                return null;
+            }
+            return (DefinitionIndex<T>) indexClass.getConstructor().newInstance();
+        } catch (Throwable t) {
+            LoggerUtils.warn("Cannot read the index %s".formatted(className == null ? indexPath : className), t);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Generates the {@link DefinitionIndex} source of a plugin from the container annotation processors.
+ * <p>
+ * Besides writing the index, the definition classes are validated at compile time: they must be
+ * public, concrete, with a public no-arg constructor, and the dependencies must be other annotated
+ * classes without cycles.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class DefinitionIndexGenerator {
+
+    private final ProcessingEnvironment processingEnv;
+    private final Class<? extends Annotation> annotation;
+    private final String indexSimpleName;
+    private final String indexPath;
+    private final String definitionType;
+    private final String processorName;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean failed = false;
+
+    private record Entry(TypeElement element, List<String> depends, boolean strongDependency) {
+    }
+
+    /**
+     * Creates a new generator.
+     *
+     * @param processingEnv   the processing environment
+     * @param annotation      the container annotation
+     * @param indexSimpleName the simple name of the generated index, created in the common package of the annotated classes
+     * @param indexPath       the resource where the name of the generated index is written
+     * @param definitionType  the fully qualified name of the definition type, as a name so the processor does not load it
+     * @param processor       the processor, used in the {@code @Generated} annotation
+     */
+    public DefinitionIndexGenerator(ProcessingEnvironment processingEnv, Class<? extends Annotation> annotation, String indexSimpleName, String indexPath, String definitionType, Class<?> processor) {
+        this.processingEnv = processingEnv;
+        this.annotation = annotation;
+        this.indexSimpleName = indexSimpleName;
+        this.indexPath = indexPath;
+        this.definitionType = definitionType;
+        this.processorName = processor.getCanonicalName();
+    }
+
+    /**
+     * Validates and adds an annotated class to the index.
+     *
+     * @param typeElement the annotated class
+     * @return {@code true} if the class can be created by the index
+     */
+    public boolean add(TypeElement typeElement) {
+        boolean valid = true;
+        if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            this.error(typeElement, "is abstract");
+            valid = false;
+        }
+        if (!typeElement.getModifiers().contains(Modifier.PUBLIC)) {
+            this.error(typeElement, "need be public");
+            valid = false;
+        }
+        if (typeElement.getNestingKind() == NestingKind.MEMBER && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+            this.error(typeElement, "need be a static nested class");
+            valid = false;
+        } else if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS) {
+            this.error(typeElement, "need be a top level class");
+            valid = false;
+        }
+        boolean publicConstructor = ElementFilter.constructorsIn(typeElement.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!publicConstructor) {
+            this.error(typeElement, "need a public constructor without parameters");
+            valid = false;
+        }
+        if (!valid) {
+            return false;
+        }
+
+        List<String> depends = new ArrayList<>();
+        boolean strongDependency = true;
+        AnnotationMirror annotationMirror = this.findAnnotation(typeElement);
+        if (annotationMirror != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+                String name = value.getKey().getSimpleName().toString();
+                if (name.equals("depends") && value.getValue().getValue() instanceof List<?> classes) {
+                    for (Object dependency : classes) {
+                        if (dependency instanceof AnnotationValue annotationValue && annotationValue.getValue() instanceof DeclaredType declaredType) {
+                            depends.add(((TypeElement) declaredType.asElement()).getQualifiedName().toString());
+                        }
+                    }
+                } else if (name.equals("strongDependency") && value.getValue().getValue() instanceof Boolean strong) {
+                    strongDependency = strong;
+                }
+            }
+        }
+        this.entries.put(typeElement.getQualifiedName().toString(), new Entry(typeElement, depends, strongDependency));
+        return true;
+    }
+
+    /**
+     * Marks the index as failed, so it is not written.
+     */
+    public void fail() {
+        this.failed = true;
+    }
+
+    /**
+     * Validates the dependencies and writes the index source.
+     * <br>
+     * The index can only be written once, so this is called in the last round with the classes of all the rounds.
+     */
+    public void write() {
+        DependencyGraph<String> graph = new DependencyGraph<>(Comparator.naturalOrder());
+        this.entries.forEach((name, entry) -> graph.add(name, entry.depends()));
+
+        for (Entry entry : this.entries.values()) {
+            for (String dependency : entry.depends()) {
+                if (graph.contains(dependency)) {
+                    continue;
+                }
+                if (entry.strongDependency()) {
+                    this.error(entry.element(), "depends on %s, that is not a valid @%s class".formatted(dependency, this.annotation.getSimpleName()));
+                } else {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "@%s-annotated class %s depends on %s, that is not a valid @%s class".formatted(this.annotation.getSimpleName(), entry.element(), dependency, this.annotation.getSimpleName()), entry.element());
+                }
+            }
+        }
+
+        DependencyGraph.Sorted<String> sorted = graph.sort();
+        for (String blocked : sorted.blocked()) {
+            this.error(this.entries.get(blocked).element(), "has a dependency cycle: " + String.join(" -> ", graph.findCycle(blocked, sorted.blocked())));
+        }
+
+        if (this.failed || this.entries.isEmpty()) {
+            return;
+        }
+        // In a package of the plugin, so the index of each plugin has its own name
+        String packageName = this.commonPackage();
+        String indexClassName = packageName.isEmpty() ? this.indexSimpleName : packageName + "." + this.indexSimpleName;
+        Element[] originatingElements = this.entries.values().stream().map(Entry::element).toArray(Element[]::new);
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(indexClassName, originatingElements).openWriter()) {
+            writer.write(this.generateSource(packageName, sorted.waves()));
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the index %s: %s".formatted(indexClassName, e.getMessage()));
+            return;
+        }
+        try (Writer writer = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", this.indexPath, originatingElements).openWriter()) {
+            writer.write(indexClassName);
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the file %s: %s".formatted(this.indexPath, e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets the longest package shared by all the annotated classes.
+     *
+     * @return the package, empty if they do not share any
+     */
+    private String commonPackage() {
+        String @Nullable [] common = null;
+        int length = 0;
+        for (Entry entry : this.entries.values()) {
+            String[] parts = this.processingEnv.getElementUtils().getPackageOf(entry.element()).getQualifiedName().toString().split("\\.");
+            if (common == null) {
+                common = parts;
+                length = parts.length;
+                continue;
+            }
+            int shared = 0;
+            while (shared < Math.min(length, parts.length) && common[shared].equals(parts[shared])) {
+                shared++;
+            }
+            length = shared;
+        }
+        return common == null ? "" : String.join(".", Arrays.copyOf(common, length));
+    }
+
+    private String generateSource(String packageName, List<List<String>> waves) {
+        String nodeType = "DefinitionLoader.Node<" + this.definitionType + ">";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionIndex;\n");
+        source.append("import dev.mrdoc.minecraft.dlibcustomextension.utils.registry.DefinitionLoader;\n");
+        source.append("import java.util.List;\n");
+        source.append("import javax.annotation.processing.Generated;\n\n");
+        source.append("@Generated(\"").append(this.processorName).append("\")\n");
+        source.append("public final class ").append(this.indexSimpleName).append(" implements DefinitionIndex<").append(this.definitionType).append("> {\n\n");
+        source.append("    private static final List<List<").append(nodeType).append(">> WAVES = List.of(\n");
+        source.append(waves.stream().map(wave -> "            List.of(\n" + wave.stream().map(name -> "                    " + this.generateNode(nodeType, name)).collect(Collectors.joining(",\n")) + "\n            )").collect(Collectors.joining(",\n")));
+        source.append("\n    );\n\n");
+        source.append("    @Override\n");
+        source.append("    public List<List<").append(nodeType).append(">> waves() {\n");
+        source.append("        return WAVES;\n");
+        source.append("    }\n\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private String generateNode(String nodeType, String name) {
+        Entry entry = this.entries.get(name);
+        String depends = entry.depends().stream().filter(this.entries::containsKey).map(dependency -> dependency + ".class").collect(Collectors.joining(", "));
+        return "new %s(%s.class, %s::new, new Class<?>[]{%s}, %s)".formatted(nodeType, name, name, depends, entry.strongDependency());
+    }
+
+    private @Nullable AnnotationMirror findAnnotation(TypeElement typeElement) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            Element annotationElement = annotationMirror.getAnnotationType().asElement();
+            if (annotationElement.getKind() == ElementKind.ANNOTATION_TYPE && ((TypeElement) annotationElement).getQualifiedName().contentEquals(this.annotation.getCanonicalName())) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@%s-annotated class %s %s".formatted(this.annotation.getSimpleName(), element, message), element);
+        this.failed = true;
+    }
+
+}
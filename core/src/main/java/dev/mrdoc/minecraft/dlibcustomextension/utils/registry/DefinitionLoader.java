@@ -0,0 +1,197 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import dev.mrdoc.minecraft.dlibcustomextension.utils.LoggerUtils;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.SneakyThrows;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Loads custom definitions (items, potions...) in dependency order.
+ * <p>
+ * The definition classes are sorted topologically into waves, a wave only depends on the previous
+ * ones. The waves come precomputed from the {@link DefinitionIndex} generated at compile time, or are
+ * sorted here for the classes read from the {@code META-INF} files. The definitions of a wave are
+ * created in parallel on a fork-join pool, then registered one by one on the calling thread, ordered
+ * by class name, so the registration order is always the same. Missing dependencies and dependency
+ * cycles are reported instead of blocking the load.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class DefinitionLoader {
+
+    private static final Comparator<Class<?>> CLASS_ORDER = Comparator.comparing(Class::getName);
+
+    private DefinitionLoader() {
+    }
+
+    /**
+     * A definition class and its declared dependencies.
+     *
+     * @param type             the definition class
+     * @param factory          creates a new instance of the definition
+     * @param depends          the classes required before this one
+     * @param strongDependency if {@code false} this definition is loaded even if the dependencies fail
+     * @param <T>              the definition type
+     */
+    public record Node<T>(Class<? extends T> type, Supplier<? extends T> factory, Class<?>[] depends, boolean strongDependency) {
+
+        /**
+         * Creates a node that instantiates the class through its public no-arg constructor.
+         *
+         * @param type             the definition class
+         * @param depends          the classes required before this one
+         * @param strongDependency if {@code false} this definition is loaded even if the dependencies fail
+         * @param <T>              the definition type
+         * @return the node
+         */
+        public static <T> Node<T> reflective(Class<? extends T> type, Class<?>[] depends, boolean strongDependency) {
+            return new Node<>(type, () -> newInstance(type), depends, strongDependency);
+        }
+
+    }
+
+    private record Outcome<T>(@Nullable T value, @Nullable Throwable error) {
+    }
+
+    /**
+     * Sorts the definitions into waves, reporting the ones blocked by a dependency cycle.
+     *
+     * @param kind  the name of the definition kind, used in the logs
+     * @param nodes the definition classes
+     * @param <T>   the definition type
+     * @return the waves, without the blocked definitions
+     */
+    public static <T> List<List<Node<T>>> sortWaves(String kind, Collection<Node<T>> nodes) {
+        Map<Class<?>, Node<T>> byType = new HashMap<>();
+        DependencyGraph<Class<?>> graph = new DependencyGraph<>(CLASS_ORDER);
+        for (Node<T> node : nodes) {
+            if (byType.putIfAbsent(node.type(), node) == null) {
+                graph.add(node.type(), Arrays.asList(node.depends()));
+            }
+        }
+
+        DependencyGraph.Sorted<Class<?>> sorted = graph.sort();
+        for (Class<?> type : sorted.blocked()) {
+            String cycle = graph.findCycle(type, sorted.blocked()).stream().map(Class::getSimpleName).collect(Collectors.joining(" -> "));
+            LoggerUtils.warn("Cannot load [%s] %s custom, dependency cycle: %s".formatted(type.getSimpleName(), kind, cycle));
+        }
+        return sorted.waves().stream().map(wave -> wave.stream().map(byType::get).toList()).toList();
+    }
+
+    /**
+     * Instantiates and registers the definitions of some sorted waves.
+     *
+     * @param kind        the name of the definition kind, used in the logs
+     * @param waves       the definitions grouped by dependency level, a wave only depends on the previous ones
+     * @param classLoader the context class loader for the worker threads
+     * @param register    called on the calling thread for each created definition, in registration order
+     * @param <T>         the definition type
+     * @return the amount of registered definitions
+     */
+    public static <T> int loadWaves(String kind, List<? extends List<Node<T>>> waves, ClassLoader classLoader, Consumer<T> register) {
+        Set<Class<?>> known = new HashSet<>();
+        waves.forEach(wave -> wave.forEach(node -> known.add(node.type())));
+
+        Set<Class<?>> failed = new HashSet<>();
+        int registered = 0;
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), workerFactory(classLoader), null, false)) {
+            for (List<Node<T>> wave : waves) {
+                List<Node<T>> toCreate = new ArrayList<>();
+                for (Node<T> node : wave) {
+                    if (canLoad(kind, node, known, failed)) {
+                        toCreate.add(node);
+                    } else {
+                        failed.add(node.type());
+                    }
+                }
+
+                List<Outcome<T>> outcomes = instantiate(toCreate, pool);
+                for (int i = 0; i < toCreate.size(); i++) {
+                    Class<? extends T> type = toCreate.get(i).type();
+                    Outcome<T> outcome = outcomes.get(i);
+                    try {
+                        if (outcome.error() != null) {
+                            throw outcome.error();
+                        }
+                        register.accept(outcome.value());
+                        registered++;
+                    } catch (Throwable e) {
+                        LoggerUtils.warn("Cannot load [%s] %s custom".formatted(type.getSimpleName(), kind), e);
+                        failed.add(type);
+                    }
+                }
+            }
+        }
+        return registered;
+    }
+
+    private static boolean canLoad(String kind, Node<?> node, Set<Class<?>> known, Set<Class<?>> failed) {
+        for (Class<?> dependency : node.depends()) {
+            if (!known.contains(dependency)) {
+                if (node.strongDependency()) {
+                    LoggerUtils.warn("Cannot load [%s] %s custom, missing dependency [%s]".formatted(node.type().getSimpleName(), kind, dependency.getName()));
+                    return false;
+                }
+                LoggerUtils.warn("Dependency [%s] of [%s] %s custom is missing, loading without it".formatted(dependency.getName(), node.type().getSimpleName(), kind));
+            } else if (failed.contains(dependency) && node.strongDependency()) {
+                LoggerUtils.warn("Cannot load [%s] %s custom, dependency [%s] was not loaded".formatted(node.type().getSimpleName(), kind, dependency.getSimpleName()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> List<Outcome<T>> instantiate(List<Node<T>> nodes, ForkJoinPool pool) {
+        if (nodes.size() == 1) {
+            return List.of(create(nodes.getFirst()));
+        }
+        List<CompletableFuture<Outcome<T>>> futures = new ArrayList<>(nodes.size());
+        for (Node<T> node : nodes) {
+            futures.add(CompletableFuture.supplyAsync(() -> create(node), pool));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static <T> Outcome<T> create(Node<T> node) {
+        try {
+            return new Outcome<>(node.factory().get(), null);
+        } catch (Throwable e) {
+            return new Outcome<>(null, e);
+        }
+    }
+
+    @SneakyThrows
+    private static <T> T newInstance(Class<? extends T> type) {
+        try {
+            return type.getConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            throw e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory workerFactory(ClassLoader classLoader) {
+        return pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("DLibCustomExtension-Loader-" + thread.getPoolIndex());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        };
+    }
+
+}
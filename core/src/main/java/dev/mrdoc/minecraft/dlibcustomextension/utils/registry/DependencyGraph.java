@@ -0,0 +1,135 @@
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Dependency graph sorted topologically into waves, used at runtime by {@link DefinitionLoader} and at
+ * compile time by the container annotation processors.
+ * <p>
+ * A wave only depends on the previous ones and is sorted with the given order, so the result is
+ * always the same for the same graph. Dependencies on nodes that are not in the graph are ignored.
+ * </p>
+ *
+ * @param <K> the node type
+ */
+@ApiStatus.Internal
+public final class DependencyGraph<K> {
+
+    private final Comparator<? super K> order;
+    private final Map<K, Set<K>> dependencies = new LinkedHashMap<>();
+
+    /**
+     * Creates a new empty graph.
+     *
+     * @param order the order of the nodes inside a wave
+     */
+    public DependencyGraph(Comparator<? super K> order) {
+        this.order = order;
+    }
+
+    /**
+     * Adds a node and its dependencies.
+     *
+     * @param node         the node
+     * @param dependencies the nodes required before this one
+     */
+    public void add(K node, Collection<? extends K> dependencies) {
+        this.dependencies.computeIfAbsent(node, key -> new LinkedHashSet<>()).addAll(dependencies);
+    }
+
+    /**
+     * Checks if a node was added to the graph.
+     *
+     * @param node the node
+     * @return {@code true} if the node is in the graph
+     */
+    public boolean contains(K node) {
+        return this.dependencies.containsKey(node);
+    }
+
+    /**
+     * Sorts the graph into waves.
+     *
+     * @return the sorted graph
+     */
+    public Sorted<K> sort() {
+        Map<K, Integer> pending = new HashMap<>();
+        Map<K, List<K>> dependents = new HashMap<>();
+        for (Map.Entry<K, Set<K>> entry : this.dependencies.entrySet()) {
+            int count = 0;
+            for (K dependency : entry.getValue()) {
+                if (this.contains(dependency)) {
+                    dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(entry.getKey());
+                    count++;
+                }
+            }
+            pending.put(entry.getKey(), count);
+        }
+
+        List<List<K>> waves = new ArrayList<>();
+        List<K> wave = new ArrayList<>(this.dependencies.keySet().stream().filter(node -> pending.get(node) == 0).toList());
+        while (!wave.isEmpty()) {
+            wave.sort(this.order);
+            waves.add(List.copyOf(wave));
+            List<K> nextWave = new ArrayList<>();
+            for (K node : wave) {
+                for (K dependent : dependents.getOrDefault(node, List.of())) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                        nextWave.add(dependent);
+                    }
+                }
+            }
+            wave = nextWave;
+        }
+
+        List<K> blocked = this.dependencies.keySet().stream().filter(node -> pending.get(node) > 0).sorted(this.order).toList();
+        return new Sorted<>(List.copyOf(waves), blocked);
+    }
+
+    /**
+     * Finds the dependency cycle that blocks a node, following its blocked dependencies until one repeats.
+     *
+     * @param start   a blocked node
+     * @param blocked the blocked nodes from {@link #sort()}
+     * @return the cycle, the first and last nodes are the same
+     */
+    public List<K> findCycle(K start, Collection<K> blocked) {
+        Deque<K> path = new ArrayDeque<>();
+        K current = start;
+        while (!path.contains(current)) {
+            path.addLast(current);
+            current = this.dependencies.get(current).stream()
+                    .filter(blocked::contains)
+                    .min(this.order)
+                    .orElseThrow();
+        }
+        while (!Objects.equals(path.peekFirst(), current)) {
+            path.removeFirst();
+        }
+        path.addLast(current);
+        return List.copyOf(path);
+    }
+
+    /**
+     * The result of sorting a graph.
+     *
+     * @param waves   the nodes grouped by dependency level, a wave only depends on the previous ones
+     * @param blocked the nodes in, or depending on, a dependency cycle
+     * @param <K>     the node type
+     */
+    public record Sorted<K>(List<List<K>> waves, List<K> blocked) {
+    }
+
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package dev.mrdoc.minecraft.dlibcustomextension.utils.registry;
+
+import org.jspecify.annotations.NullMarked;
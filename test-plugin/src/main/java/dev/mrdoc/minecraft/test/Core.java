@@ -19,4 +19,9 @@ public class Core extends JavaPlugin {
         DLibCustomExtensionManager.getInstance().onEnable();
         this.getLogger().info("TestPlugin enabled!");
     }
+
+    @Override
+    public void onDisable() {
+        DLibCustomExtensionManager.getInstance().onDisable();
+    }
 }
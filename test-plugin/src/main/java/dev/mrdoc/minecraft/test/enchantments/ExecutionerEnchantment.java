@@ -0,0 +1,47 @@
+package dev.mrdoc.minecraft.test.enchantments;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.annotations.CustomEnchantmentContainer;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.CustomEnchantmentBuilder;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.EnchantmentRole;
+import io.papermc.paper.registry.data.EnchantmentRegistryEntry;
+import io.papermc.paper.registry.keys.ItemTypeKeys;
+import io.papermc.paper.registry.keys.tags.ItemTypeTagKeys;
+import io.papermc.paper.tag.TagEntry;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextColor;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.inventory.EquipmentSlotGroup;
+
+@CustomEnchantmentContainer
+public class ExecutionerEnchantment extends AbstractCustomEnchantment {
+
+    public ExecutionerEnchantment() {
+        super(CustomEnchantmentBuilder.create("executioner", Component.text("Executioner", TextColor.fromHexString("#8b1a1a")))
+                .anvilCost(8)
+                .maxLevel(3)
+                .weight(2)
+                .minimumCost(EnchantmentRegistryEntry.EnchantmentCost.of(15, 10))
+                .maximumCost(EnchantmentRegistryEntry.EnchantmentCost.of(45, 10))
+                .activeSlots(EquipmentSlotGroup.MAINHAND)
+                .supportedItems(
+                        TagEntry.tagEntry(ItemTypeTagKeys.SWORDS),
+                        TagEntry.tagEntry(ItemTypeTagKeys.AXES),
+                        TagEntry.valueEntry(ItemTypeKeys.MACE)
+                ));
+
+        // Routed by the library, only called when the damager holds this enchantment in the main hand
+        subscribe(EntityDamageByEntityEvent.class, EventPriority.NORMAL, true, EnchantmentRole.entity(EntityDamageByEntityEvent::getDamager), (event, level) -> {
+            if (!(event.getEntity() instanceof LivingEntity target)) {
+                return;
+            }
+            AttributeInstance maxHealth = target.getAttribute(Attribute.MAX_HEALTH);
+            if (maxHealth != null && target.getHealth() <= maxHealth.getValue() / 2) {
+                event.setDamage(event.getDamage() * (1 + 0.1 * level));
+            }
+        });
+    }
+}
@@ -1,4 +1,5 @@
 package dev.mrdoc.minecraft.test.enchantments;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.CustomEnchantmentManager;
 import dev.mrdoc.minecraft.dlibcustomextension.enchantments.annotations.CustomEnchantmentContainer;
 import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
 import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.CustomEnchantmentBuilder;
@@ -9,8 +10,6 @@ import io.papermc.paper.registry.keys.ItemTypeKeys;
 import io.papermc.paper.registry.keys.tags.ItemTypeTagKeys;
 import io.papermc.paper.registry.set.RegistrySet;
 import io.papermc.paper.tag.TagEntry;
-import java.util.ArrayList;
-import java.util.List;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
@@ -19,7 +18,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.inventory.EquipmentSlotGroup;
-import org.bukkit.inventory.ItemStack;
 
 @CustomEnchantmentContainer
 public class SoulboundEnchantment extends AbstractCustomEnchantment {
@@ -60,27 +58,19 @@ public class SoulboundEnchantment extends AbstractCustomEnchantment {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onDeathListener(PlayerDeathEvent event) {
-        final List<ItemStack> dropItems = event.getDrops();
-        final List<ItemStack> soulboundItems = new ArrayList<>();
         final Player player = event.getEntity();
         if (event.getKeepInventory()) {
             return;
         }
 
-        for (final ItemStack item : dropItems) {
-            if (item.getEnchantmentLevel(this.getEnchantment()) > 0) {
-                soulboundItems.add(item);
-            }
-        }
-
-        if (soulboundItems.isEmpty()) {
+        final CustomEnchantmentManager.Partition partition = CustomEnchantmentManager.partition(SoulboundEnchantment.class, event.getDrops());
+        if (partition.with().isEmpty()) {
             return;
         }
 
-        for (final ItemStack item : soulboundItems) {
-            event.getDrops().remove(item);
-            event.getItemsToKeep().add(item);
-        }
-        player.sendMessage(Component.text("Items Found: " + soulboundItems.size(), NamedTextColor.AQUA));
+        event.getDrops().clear();
+        event.getDrops().addAll(partition.without());
+        event.getItemsToKeep().addAll(partition.with());
+        player.sendMessage(Component.text("Items Found: " + partition.with().size(), NamedTextColor.AQUA));
     }
 }
@@ -0,0 +1,38 @@
+package dev.mrdoc.minecraft.test.enchantments;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.annotations.CustomEnchantmentContainer;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.AbstractCustomEnchantment;
+import dev.mrdoc.minecraft.dlibcustomextension.enchantments.classes.CustomEnchantmentBuilder;
+import io.papermc.paper.registry.data.EnchantmentRegistryEntry;
+import io.papermc.paper.registry.keys.tags.ItemTypeTagKeys;
+import io.papermc.paper.tag.TagEntry;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextColor;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.inventory.EquipmentSlotGroup;
+
+@CustomEnchantmentContainer
+public class VitalityEnchantment extends AbstractCustomEnchantment {
+
+    public VitalityEnchantment() {
+        super(CustomEnchantmentBuilder.create("vitality", Component.text("Vitality", TextColor.fromHexString("#e05a7a")))
+                .anvilCost(10)
+                .maxLevel(2)
+                .weight(2)
+                .minimumCost(EnchantmentRegistryEntry.EnchantmentCost.of(20, 10))
+                .maximumCost(EnchantmentRegistryEntry.EnchantmentCost.of(50, 10))
+                .activeSlots(EquipmentSlotGroup.CHEST)
+                .supportedItems(
+                        TagEntry.tagEntry(ItemTypeTagKeys.CHEST_ARMOR)
+                ));
+
+        // Run by the library task every 5 seconds for the players wearing this enchantment
+        tickEffect(100, (player, level) -> {
+            AttributeInstance maxHealth = player.getAttribute(Attribute.MAX_HEALTH);
+            if (maxHealth == null || player.isDead()) {
+                return;
+            }
+            player.setHealth(Math.min(maxHealth.getValue(), player.getHealth() + level));
+        });
+    }
+}